@@ -0,0 +1,312 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Concurrent carving of many pictures on bounded worker pools
+ **************************************************************************** */
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class CarvingService implements AutoCloseable {
+
+    private static final long MAX_POOLED_PIXELS = 1 << 23;  // a 4K picture, ~200 MB of arrays
+
+    private final ExecutorService io;               // pool decoding and encoding pictures
+    private final ExecutorService cpu;              // pool carving pictures
+    private final Semaphore inFlight;               // permits for pictures being processed
+    private final int maxInFlight;                  // number of permits of inFlight
+    private final ThreadLocal<SeamCarver.Buffers> buffers;  // arrays of each worker
+
+    /**
+     * Constructor for CarvingService
+     *
+     * @param workers     the number of threads carving pictures
+     * @param ioThreads   the number of threads decoding and encoding pictures
+     * @param maxInFlight the number of pictures that can be in progress before submit blocks
+     */
+    public CarvingService(int workers, int ioThreads, int maxInFlight) {
+        if (workers < 1 || ioThreads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Pool sizes must be positive!");
+        }
+        this.cpu = Executors.newFixedThreadPool(workers);
+        this.io = Executors.newFixedThreadPool(ioThreads);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.buffers = new ThreadLocal<>();
+    }
+
+    /**
+     * Constructor for CarvingService with one carving thread per processor
+     */
+    public CarvingService() {
+        this(Runtime.getRuntime().availableProcessors(), 4,
+             4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Method to carve a picture on the worker pool. Blocks while the maximum number of pictures
+     * is already in progress.
+     *
+     * @param picture      the picture to carve
+     * @param targetWidth  the width of the carved picture
+     * @param targetHeight the height of the carved picture
+     * @return the carved picture, once done
+     * @throws InterruptedException if interrupted while waiting for a free slot
+     */
+    public CompletableFuture<Picture> submit(Picture picture, int targetWidth, int targetHeight)
+            throws InterruptedException {
+        if (picture == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        inFlight.acquire();
+        try {
+            return CompletableFuture.supplyAsync(() -> carve(picture, targetWidth, targetHeight),
+                                                 cpu)
+                                    .whenComplete((result, e) -> inFlight.release());
+        }
+        catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Method to decode, carve and encode a picture file. Decoding and encoding run on the I/O
+     * pool and carving on the worker pool. Blocks while the maximum number of pictures is already
+     * in progress.
+     *
+     * @param input       the picture file to read
+     * @param output      the file the carved picture is written to
+     * @param widthScale  the fraction of the width to keep
+     * @param heightScale the fraction of the height to keep
+     * @return the latency of the picture in nanoseconds, once written
+     * @throws InterruptedException if interrupted while waiting for a free slot
+     */
+    public CompletableFuture<Long> submit(File input, File output, double widthScale,
+                                          double heightScale) throws InterruptedException {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        if (!(widthScale > 0 && widthScale <= 1 && heightScale > 0 && heightScale <= 1)) {
+            throw new IllegalArgumentException("Scale outside prescribed range!");
+        }
+        inFlight.acquire();
+        long start = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> read(input), io)
+                                    .thenApplyAsync(image -> carve(image,
+                                                                   scale(image.getWidth(),
+                                                                         widthScale),
+                                                                   scale(image.getHeight(),
+                                                                         heightScale)), cpu)
+                                    .thenApplyAsync(image -> {
+                                        write(image, output);
+                                        return System.nanoTime() - start;
+                                    }, io)
+                                    .whenComplete((latency, e) -> inFlight.release());
+        }
+        catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Private method to decode a picture file
+     *
+     * @param file the picture file
+     * @return the decoded image
+     */
+    private static BufferedImage read(File file) {
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                throw new IllegalArgumentException("Unsupported picture format: " + file);
+            }
+            return image;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Private method to encode a picture file in the format given by its suffix
+     *
+     * @param image the image to encode
+     * @param file  the picture file
+     */
+    private static void write(BufferedImage image, File file) {
+        String name = file.getName();
+        String suffix = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        try {
+            if (!ImageIO.write(image, suffix, file)) {
+                throw new IllegalArgumentException("Unsupported picture format: " + file);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Private method to carve a picture, reusing the arrays of the previous picture carved by
+     * the same worker
+     *
+     * @param picture      the picture to carve
+     * @param targetWidth  the width of the carved picture
+     * @param targetHeight the height of the carved picture
+     * @return the carved picture
+     */
+    private Picture carve(Picture picture, int targetWidth, int targetHeight) {
+        SeamCarver sc = new SeamCarver(picture, new DualGradientEnergy(), buffers.get());
+        Picture result = sc.resizeTo(targetWidth, targetHeight);
+        keepBuffers(sc);
+        return result;
+    }
+
+    /**
+     * Private method to carve an image, copying its pixels in and out in bulk and reusing the
+     * arrays of the previous picture carved by the same worker
+     *
+     * @param image        the image to carve
+     * @param targetWidth  the width of the carved image
+     * @param targetHeight the height of the carved image
+     * @return the carved image
+     */
+    private BufferedImage carve(BufferedImage image, int targetWidth, int targetHeight) {
+        SeamCarver sc = new SeamCarver(image, new DualGradientEnergy(), buffers.get());
+        sc.resize(targetWidth, targetHeight, SeamCarver.SeamOrder.VERTICAL_FIRST);
+        BufferedImage result = sc.toBufferedImage();
+        keepBuffers(sc);
+        return result;
+    }
+
+    /**
+     * Private method to keep the arrays of a finished carver for the next picture of the same
+     * worker. Arrays larger than a 4K picture are dropped, so one large picture does not pin
+     * its memory to the worker for the rest of the run.
+     *
+     * @param sc the finished carver
+     */
+    private void keepBuffers(SeamCarver sc) {
+        SeamCarver.Buffers released = sc.releaseBuffers();
+        if (released.pixels() <= MAX_POOLED_PIXELS) {
+            buffers.set(released);
+        }
+        else {
+            buffers.remove();
+        }
+    }
+
+    /**
+     * Private method to scale a dimension, keeping at least one pixel
+     *
+     * @param size  the dimension
+     * @param scale the fraction to keep
+     * @return the scaled dimension
+     */
+    private static int scale(int size, double scale) {
+        return Math.max(1, (int) Math.round(size * scale));
+    }
+
+    /**
+     * Method to carve every picture of a directory, printing the latency of each picture and the
+     * overall throughput
+     *
+     * @param inputDir    the directory of pictures
+     * @param outputDir   the directory the carved pictures are written to
+     * @param widthScale  the fraction of the width to keep
+     * @param heightScale the fraction of the height to keep
+     * @throws InterruptedException if interrupted while waiting for a free slot
+     */
+    public void carveDirectory(File inputDir, File outputDir, double widthScale,
+                               double heightScale) throws InterruptedException {
+        File[] files = inputDir.listFiles((dir, name) -> name.matches("(?i).*\\.(png|jpe?g)"));
+        if (files == null) {
+            throw new IllegalArgumentException("Input is not a directory!");
+        }
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create output directory!");
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> latencies = new ArrayList<>();
+        for (File file : files) {
+            latencies.add(submit(file, new File(outputDir, file.getName()), widthScale,
+                                 heightScale));
+        }
+
+        int done = 0;
+        for (int i = 0; i < files.length; i++) {
+            try {
+                StdOut.printf("%-40s %8.1f ms%n", files[i].getName(),
+                              latencies.get(i).join() / 1e6);
+                done++;
+            }
+            catch (RuntimeException e) {
+                StdOut.printf("%-40s failed: %s%n", files[i].getName(), e.getCause());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        StdOut.printf("%d pictures in %.2f s, %.2f pictures/s%n", done, seconds,
+                      done / seconds);
+    }
+
+    /**
+     * Method to stop the pools once the submitted pictures are done. A picture still being
+     * decoded hands its carving to the worker pool later, so both pools stay up until no picture
+     * is in progress. Pictures submitted afterwards are rejected.
+     */
+    public void close() {
+        boolean interrupted = false;
+        inFlight.acquireUninterruptibly(maxInFlight);
+        cpu.shutdown();
+        io.shutdown();
+        for (ExecutorService pool : new ExecutorService[] { cpu, io }) {
+            while (true) {
+                try {
+                    pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        // Let later submits through to be rejected by the pools instead of blocking forever
+        inFlight.release(maxInFlight);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        File inputDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+        double widthScale = Double.parseDouble(args[2]);
+        double heightScale = Double.parseDouble(args[3]);
+
+        try (CarvingService service = args.length > 4
+                                      ? new CarvingService(Integer.parseInt(args[4]), 4,
+                                                           4 * Integer.parseInt(args[4]))
+                                      : new CarvingService()) {
+            service.carveDirectory(inputDir, outputDir, widthScale, heightScale);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Dual-gradient energy function, the default of SeamCarver
+ **************************************************************************** */
+
+public class DualGradientEnergy implements EnergyFunction {
+
+    private static final int MAX_SQUARED_GRADIENT = 6 * 255 * 255;
+    private static double[] sqrtTable;      // roots of every possible sum of squared gradients
+
+    private final double[] roots;           // sqrtTable if enabled, otherwise null
+
+    /**
+     * Constructor for the dual-gradient energy using Math.sqrt
+     */
+    public DualGradientEnergy() {
+        this(false);
+    }
+
+    /**
+     * Constructor for the dual-gradient energy. The lookup table holds the 6 * 255 * 255 + 1
+     * possible roots, takes about 3 MB and is only faster where Math.sqrt is not an intrinsic.
+     * Both give the correctly rounded root, so the energy values are the same.
+     *
+     * @param useSqrtTable whether square roots are taken from a lookup table
+     */
+    public DualGradientEnergy(boolean useSqrtTable) {
+        this.roots = useSqrtTable ? table() : null;
+    }
+
+    /**
+     * Private method to build the lookup table of square roots once
+     *
+     * @return the lookup table
+     */
+    private static synchronized double[] table() {
+        if (sqrtTable == null) {
+            double[] table = new double[MAX_SQUARED_GRADIENT + 1];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = Math.sqrt(i);
+            }
+            sqrtTable = table;
+        }
+        return sqrtTable;
+    }
+
+    /**
+     * Method to compute the energy of a range of pixels in a row. Border pixels have energy 1000,
+     * the others the square root of the sum of their squared x- and y-gradients. The interior is
+     * done in two branch-free passes over the row, integer gradients then square roots, which
+     * the JIT can turn into vector instructions.
+     */
+    public void energyRow(int[][] rgb, int width, int height, int row, int fromCol, int toCol,
+                          double[] out) {
+        if (row == 0 || row == height - 1) {
+            for (int col = fromCol; col < toCol; col++) {
+                out[col] = 1000.0;
+            }
+            return;
+        }
+
+        if (fromCol == 0) {
+            out[0] = 1000.0;
+            fromCol = 1;
+        }
+        if (toCol == width) {
+            out[width - 1] = 1000.0;
+            toCol = width - 1;
+        }
+        int[] above = rgb[row - 1];
+        int[] current = rgb[row];
+        int[] below = rgb[row + 1];
+
+        /* Squared gradients in integer arithmetic */
+        for (int col = fromCol; col < toCol; col++) {
+            int left = current[col - 1];
+            int right = current[col + 1];
+            int top = above[col];
+            int bottom = below[col];
+            int rx = ((right >> 16) & 0xFF) - ((left >> 16) & 0xFF);
+            int gx = ((right >> 8) & 0xFF) - ((left >> 8) & 0xFF);
+            int bx = (right & 0xFF) - (left & 0xFF);
+            int ry = ((bottom >> 16) & 0xFF) - ((top >> 16) & 0xFF);
+            int gy = ((bottom >> 8) & 0xFF) - ((top >> 8) & 0xFF);
+            int by = (bottom & 0xFF) - (top & 0xFF);
+            out[col] = rx * rx + gx * gx + bx * bx + ry * ry + gy * gy + by * by;
+        }
+
+        /* Square roots */
+        if (roots != null) {
+            for (int col = fromCol; col < toCol; col++) {
+                out[col] = roots[(int) out[col]];
+            }
+        }
+        else {
+            for (int col = fromCol; col < toCol; col++) {
+                out[col] = Math.sqrt(out[col]);
+            }
+        }
+    }
+
+    /**
+     * Method to return how far from a pixel the energy function reads
+     *
+     * @return 1, the energy only reads the four direct neighbours
+     */
+    public int radius() {
+        return 1;
+    }
+}
@@ -0,0 +1,36 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Energy function used by SeamCarver to rank pixels
+ **************************************************************************** */
+
+/**
+ * Computes the energy of the pixels of a picture a row at a time. SeamCarver may call it on the
+ * transposed picture and from several threads at once, so implementations should give the same
+ * result for a picture and its transpose and must not keep per-call state in fields.
+ */
+public interface EnergyFunction {
+
+    /**
+     * Method to compute the energy of a range of pixels in a row
+     *
+     * @param rgb     the RGB values of the picture, only the first height rows and first width
+     *                columns are in use
+     * @param width   the width of the picture
+     * @param height  the height of the picture
+     * @param row     the row
+     * @param fromCol the first column, inclusive
+     * @param toCol   the last column, exclusive
+     * @param out     the array the energy of column col is written to, at index col
+     */
+    void energyRow(int[][] rgb, int width, int height, int row, int fromCol, int toCol,
+                   double[] out);
+
+    /**
+     * Method to return how far from a pixel the energy function reads, so that SeamCarver knows
+     * which energy values a seam removal changes
+     *
+     * @return the largest row or column distance of a pixel read to compute an energy value
+     */
+    int radius();
+}
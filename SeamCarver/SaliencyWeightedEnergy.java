@@ -0,0 +1,95 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Energy function weighting another one by a saliency estimate
+ **************************************************************************** */
+
+import edu.princeton.cs.algs4.Picture;
+
+public class SaliencyWeightedEnergy implements EnergyFunction {
+
+    private final EnergyFunction base;      // energy function being weighted
+    private final double strength;          // weight of the most salient pixels minus 1
+    private final int meanR;                // mean red value of the picture, times 9
+    private final int meanG;                // mean green value of the picture, times 9
+    private final int meanB;                // mean blue value of the picture, times 9
+
+    /**
+     * Constructor for SaliencyWeightedEnergy. The saliency of a pixel is the distance between its
+     * 3-by-3 blurred colour and the mean colour of the picture, which stands out for objects that
+     * differ from the background. The mean is taken once here and kept as pixels are removed.
+     *
+     * @param base     the energy function being weighted
+     * @param picture  the picture the mean colour is taken from
+     * @param strength how much more the most salient pixels weigh than the least salient ones
+     */
+    public SaliencyWeightedEnergy(EnergyFunction base, Picture picture, double strength) {
+        if (base == null || picture == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        if (!(strength >= 0)) {
+            throw new IllegalArgumentException("Strength must not be negative!");
+        }
+        this.base = base;
+        this.strength = strength;
+
+        long r = 0;
+        long g = 0;
+        long b = 0;
+        for (int row = 0; row < picture.height(); row++) {
+            for (int col = 0; col < picture.width(); col++) {
+                int rgb = picture.getRGB(col, row);
+                r += (rgb >> 16) & 0xFF;
+                g += (rgb >> 8) & 0xFF;
+                b += rgb & 0xFF;
+            }
+        }
+        long pixels = (long) picture.width() * picture.height();
+        this.meanR = (int) (9 * r / pixels);
+        this.meanG = (int) (9 * g / pixels);
+        this.meanB = (int) (9 * b / pixels);
+    }
+
+    /**
+     * Method to compute the energy of a range of pixels in a row, as the energy of the base
+     * function multiplied by 1 + strength * saliency, with saliency scaled to [0, 1]. Pixels on
+     * the border of the picture keep the energy of the base function.
+     */
+    public void energyRow(int[][] rgb, int width, int height, int row, int fromCol, int toCol,
+                          double[] out) {
+        base.energyRow(rgb, width, height, row, fromCol, toCol, out);
+        if (row == 0 || row == height - 1) {
+            return;
+        }
+
+        int[] above = rgb[row - 1];
+        int[] current = rgb[row];
+        int[] below = rgb[row + 1];
+        double scale = strength / (9 * 255 * Math.sqrt(3));
+        for (int col = Math.max(fromCol, 1); col < Math.min(toCol, width - 1); col++) {
+            int r = 0;
+            int g = 0;
+            int b = 0;
+            for (int k = col - 1; k <= col + 1; k++) {
+                r += ((above[k] >> 16) & 0xFF) + ((current[k] >> 16) & 0xFF)
+                        + ((below[k] >> 16) & 0xFF);
+                g += ((above[k] >> 8) & 0xFF) + ((current[k] >> 8) & 0xFF)
+                        + ((below[k] >> 8) & 0xFF);
+                b += (above[k] & 0xFF) + (current[k] & 0xFF) + (below[k] & 0xFF);
+            }
+            r -= meanR;
+            g -= meanG;
+            b -= meanB;
+            out[col] *= 1 + scale * Math.sqrt(r * r + g * g + b * b);
+        }
+    }
+
+    /**
+     * Method to return how far from a pixel the energy function reads
+     *
+     * @return the radius of the base function, at least 1 for the blur
+     */
+    public int radius() {
+        return Math.max(base.radius(), 1);
+    }
+}
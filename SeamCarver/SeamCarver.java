@@ -6,40 +6,90 @@
 
 import edu.princeton.cs.algs4.Picture;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class SeamCarver {
 
+    private static final int PARALLEL_ENERGY_PIXELS = 1 << 16;  // pixels per energy task
+    private static final int PARALLEL_DP_BAND = 32;             // rows relaxed between joins
+    private static final int PARALLEL_DP_COLUMNS = 512;         // fewest columns per DP task
+
+    private final EnergyFunction energyFunction;    // function computing the energy values
     private int[][] pictureRGB;             // 2D Array to store RGB values of picture
     private double[][] matrix;              // 2D Array to store energy values
-    private double[][] distTo;              // 2D Array to store distances
-    private Coord[][] edgeTo;               // 2D Array to store coordinates of the edges to
+    private int[][] spareRGB;               // 2D Array the RGB values are transposed into
+    private double[][] spareMatrix;         // 2D Array the energy values are transposed into
+    private double[] distTo;                // distances to the pixels of the previous row
+    private double[] distNext;              // distances to the pixels of the current row
+    private byte[] edgeTo;                  // column offset (-1, 0, 1) of each pixel's parent
+    private double[][] bandDist;            // two rows of distances per parallel DP task
+    private double seamCost;                // total energy of the last seam found
+    private boolean transposed;             // whether the arrays currently hold the transpose
+    private SeamEnergy seamEnergy = SeamEnergy.BACKWARD;    // cost used to find seams
+    private int pyramidFactor = 1;          // downsampling of coarse-to-fine carving, 1 if exact
+    private boolean history;                // whether removed seams are logged for undo
+    private final ArrayDeque<SeamRecord> undoLog = new ArrayDeque<>();  // removed seams
+    private final ArrayDeque<SeamRecord> redoLog = new ArrayDeque<>();  // seams put back
+    private List<int[]> seamLog;            // removed seams without their pixels, or null
+    private Picture cachedPicture;          // picture() result until the pixels change
     private int height;                     // height of the picture
     private int width;                      // width of the picture
 
     /**
-     * Private class to represent values of a pixel coordinate
+     * Order in which {@link #resizeTo(int, int, SeamOrder)} removes vertical and horizontal seams
      */
-    private class Coord {
-        private int x;
-        private int y;
+    public enum SeamOrder {
+        VERTICAL_FIRST,                     // remove all vertical seams, then all horizontal ones
+        HORIZONTAL_FIRST,                   // remove all horizontal seams, then all vertical ones
+        GREEDY                              // always remove whichever seam has the lower energy
+    }
 
-        Coord(int y, int x) {
-            this.x = x;
-            this.y = y;
-        }
+    /**
+     * Cost of a seam minimised by the seam search
+     */
+    public enum SeamEnergy {
+        BACKWARD,                           // sum of the energy values of the seam's pixels
+        FORWARD                             // sum of the gradients the seam's removal creates
+    }
 
-        public int getX() {
-            return x;
-        }
+    /**
+     * Private class to log a removed seam and its pixels. The seam is stored as its first column
+     * and a 2-bit move (-1, 0, 1) per row after that.
+     */
+    private static class SeamRecord {
+        private final boolean horizontal;   // whether the seam was removed from the transpose
+        private final int start;            // column of the seam in the first row
+        private final byte[] moves;         // move to the next row plus 1, four to a byte
+        private final int[] pixels;         // RGB values of the removed pixels
 
-        public int getY() {
-            return y;
+        SeamRecord(boolean horizontal, int[] seam, int[] pixels) {
+            this.horizontal = horizontal;
+            this.start = seam[0];
+            this.moves = new byte[(seam.length + 2) / 4];
+            for (int i = 1; i < seam.length; i++) {
+                int shift = ((i - 1) & 3) << 1;
+                moves[(i - 1) >> 2] |= (byte) ((seam[i] - seam[i - 1] + 1) << shift);
+            }
+            this.pixels = pixels;
         }
 
-        public String toString() {
-            return "Coord{" +
-                    "y=" + y +
-                    ", x=" + x +
-                    '}';
+        int[] seam() {
+            int[] seam = new int[pixels.length];
+            seam[0] = start;
+            for (int i = 1; i < seam.length; i++) {
+                seam[i] = seam[i - 1] + ((moves[(i - 1) >> 2] >> (((i - 1) & 3) << 1)) & 3) - 1;
+            }
+            return seam;
         }
     }
 
@@ -49,15 +99,38 @@ public class SeamCarver {
      * @param picture the picture to be used
      */
     public SeamCarver(Picture picture) {
-        if (picture == null) {
+        this(picture, new DualGradientEnergy(), null);
+    }
+
+    /**
+     * Public constructor to create a seam carver object that ranks pixels with the given energy
+     * function
+     *
+     * @param picture        the picture to be used
+     * @param energyFunction the energy function
+     */
+    public SeamCarver(Picture picture, EnergyFunction energyFunction) {
+        this(picture, energyFunction, null);
+    }
+
+    /**
+     * Constructor to create a seam carver object that reuses the arrays released by a carver
+     * which is no longer needed, as long as they are large enough for the given picture
+     *
+     * @param picture        the picture to be used
+     * @param energyFunction the energy function
+     * @param recycled       the arrays to reuse, or null to allocate new ones
+     */
+    SeamCarver(Picture picture, EnergyFunction energyFunction, Buffers recycled) {
+        if (picture == null || energyFunction == null) {
             throw new IllegalArgumentException("Null arguement detected!");
         }
+        this.energyFunction = energyFunction;
 
         // Initialize instance variables
         this.height = picture.height();
         this.width = picture.width();
-        this.matrix = new double[height][width];
-        this.pictureRGB = new int[height][width];
+        allocate(recycled);
 
         // 2D Array creation for RGB values
         for (int row = 0; row < height; row++) {
@@ -67,10 +140,273 @@ public class SeamCarver {
         }
 
         // 2D Array creation for energy values
-        for (int row = 0; row < height(); row++) {
-            for (int col = 0; col < width(); col++) {
-                matrix[row][col] = energy(col, row);
+        computeAllEnergy();
+    }
+
+    /**
+     * Public constructor to create a seam carver object based on the given image. Images of type
+     * TYPE_INT_RGB or TYPE_INT_ARGB are copied a row at a time straight from their backing int
+     * array, and images of type TYPE_3BYTE_BGR or TYPE_4BYTE_ABGR, which ImageIO decodes PNG and
+     * JPEG files into, are unpacked straight from their backing byte array. Other types go
+     * through BufferedImage.getRGB a row at a time.
+     *
+     * @param image          the image to be used
+     * @param energyFunction the energy function
+     */
+    public SeamCarver(BufferedImage image, EnergyFunction energyFunction) {
+        this(image, energyFunction, null);
+    }
+
+    /**
+     * Constructor to create a seam carver object based on the given image, reusing the arrays
+     * released by a carver which is no longer needed
+     *
+     * @param image          the image to be used
+     * @param energyFunction the energy function
+     * @param recycled       the arrays to reuse, or null to allocate new ones
+     */
+    SeamCarver(BufferedImage image, EnergyFunction energyFunction, Buffers recycled) {
+        if (image == null || energyFunction == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        this.energyFunction = energyFunction;
+
+        // Initialize instance variables
+        this.height = image.getHeight();
+        this.width = image.getWidth();
+        allocate(recycled);
+
+        // 2D Array creation for RGB values
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            copyIntPixels(image, type == BufferedImage.TYPE_INT_RGB);
+        }
+        else if ((type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)
+                && image.getRaster().getDataBuffer() instanceof DataBufferByte
+                && image.getSampleModel() instanceof ComponentSampleModel) {
+            copyBytePixels(image, type == BufferedImage.TYPE_4BYTE_ABGR);
+        }
+        else {
+            for (int row = 0; row < height; row++) {
+                image.getRGB(0, row, width, 1, pictureRGB[row], 0, width);
+            }
+        }
+
+        // 2D Array creation for energy values
+        computeAllEnergy();
+    }
+
+    /**
+     * Private method to copy the pixels of an image backed by an int array, a row at a time
+     *
+     * @param image  the image, of type TYPE_INT_RGB or TYPE_INT_ARGB
+     * @param opaque whether the image has no alpha, so every pixel is made opaque
+     */
+    private void copyIntPixels(BufferedImage image, boolean opaque) {
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int stride = ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride();
+        int offset = image.getRaster().getDataBuffer().getOffset()
+                - image.getRaster().getSampleModelTranslateY() * stride
+                - image.getRaster().getSampleModelTranslateX();
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(data, offset + row * stride, pictureRGB[row], 0, width);
+            if (opaque) {
+                // Opaque like the values Picture.getRGB returns
+                for (int col = 0; col < width; col++) {
+                    pictureRGB[row][col] |= 0xFF000000;
+                }
+            }
+        }
+    }
+
+    /**
+     * Private method to unpack the pixels of an image backed by a byte array with one byte per
+     * band, giving the same values as BufferedImage.getRGB
+     *
+     * @param image the image, of type TYPE_3BYTE_BGR or TYPE_4BYTE_ABGR
+     * @param alpha whether the image has an alpha band
+     */
+    private void copyBytePixels(BufferedImage image, boolean alpha) {
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        ComponentSampleModel model = (ComponentSampleModel) image.getSampleModel();
+        int stride = model.getScanlineStride();
+        int pixelStride = model.getPixelStride();
+        int[] bands = model.getBandOffsets();       // offsets of red, green, blue (and alpha)
+        int offset = image.getRaster().getDataBuffer().getOffset()
+                - image.getRaster().getSampleModelTranslateY() * stride
+                - image.getRaster().getSampleModelTranslateX() * pixelStride;
+        for (int row = 0; row < height; row++) {
+            int[] rgb = pictureRGB[row];
+            int i = offset + row * stride;
+            for (int col = 0; col < width; col++, i += pixelStride) {
+                int a = alpha ? data[i + bands[3]] & 0xFF : 0xFF;
+                rgb[col] = a << 24 | (data[i + bands[0]] & 0xFF) << 16
+                        | (data[i + bands[1]] & 0xFF) << 8 | data[i + bands[2]] & 0xFF;
+            }
+        }
+    }
+
+    /**
+     * Private method to allocate the picture and energy arrays, or take over the arrays released
+     * by a carver which is no longer needed
+     *
+     * @param recycled the arrays to reuse, or null to allocate new ones
+     */
+    private void allocate(Buffers recycled) {
+        if (recycled != null) {
+            reuseBuffers(recycled);
+        }
+        if (pictureRGB == null) {
+            this.matrix = new double[height][width];
+            this.pictureRGB = new int[height][width];
+        }
+    }
+
+    /**
+     * Private method to compute every energy value, split across the common pool for large
+     * pictures
+     */
+    private void computeAllEnergy() {
+        if ((long) height * width < 2L * PARALLEL_ENERGY_PIXELS || height < 2) {
+            computeEnergy(0, height);
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(new EnergyTask(0, height));
+        }
+    }
+
+    /**
+     * Private method to take over the arrays released by another carver. Its picture and spare
+     * arrays hold transposed shapes of each other, so whichever of the two fits the new picture
+     * becomes the picture array.
+     *
+     * @param recycled the arrays to reuse
+     */
+    private void reuseBuffers(Buffers recycled) {
+        if (fits(recycled.pictureRGB)) {
+            pictureRGB = recycled.pictureRGB;
+            matrix = recycled.matrix;
+            spareRGB = recycled.spareRGB;
+            spareMatrix = recycled.spareMatrix;
+        }
+        else if (recycled.spareRGB != null && fits(recycled.spareRGB)) {
+            pictureRGB = recycled.spareRGB;
+            matrix = recycled.spareMatrix;
+            spareRGB = recycled.pictureRGB;
+            spareMatrix = recycled.matrix;
+        }
+        else {
+            return;
+        }
+        edgeTo = recycled.edgeTo;
+        distTo = recycled.distTo;
+        distNext = recycled.distNext;
+    }
+
+    /**
+     * Method to hand the arrays of this carver over to the next carver of the same thread. Only
+     * the arrays are kept, not the picture, the history or the carver itself. The carver must
+     * not be used afterwards.
+     *
+     * @return the arrays of this carver
+     */
+    Buffers releaseBuffers() {
+        Buffers buffers = new Buffers(pictureRGB, matrix, spareRGB, spareMatrix, edgeTo, distTo,
+                                      distNext);
+        pictureRGB = null;
+        matrix = null;
+        spareRGB = null;
+        spareMatrix = null;
+        edgeTo = null;
+        distTo = null;
+        distNext = null;
+        bandDist = null;
+        cachedPicture = null;
+        undoLog.clear();
+        redoLog.clear();
+        return buffers;
+    }
+
+    /**
+     * Class holding the arrays released by a carver for the next carver to reuse
+     */
+    static final class Buffers {
+        private final int[][] pictureRGB;       // RGB values, in the last orientation used
+        private final double[][] matrix;        // energy values of the same shape
+        private final int[][] spareRGB;         // transposed RGB values, or null
+        private final double[][] spareMatrix;   // transposed energy values, or null
+        private final byte[] edgeTo;            // DP parents, or null
+        private final double[] distTo;          // DP distances, or null
+        private final double[] distNext;        // DP distances, or null
+
+        private Buffers(int[][] pictureRGB, double[][] matrix, int[][] spareRGB,
+                        double[][] spareMatrix, byte[] edgeTo, double[] distTo,
+                        double[] distNext) {
+            this.pictureRGB = pictureRGB;
+            this.matrix = matrix;
+            this.spareRGB = spareRGB;
+            this.spareMatrix = spareMatrix;
+            this.edgeTo = edgeTo;
+            this.distTo = distTo;
+            this.distNext = distNext;
+        }
+
+        /**
+         * Method to get the number of pixels the arrays can hold, which their memory is
+         * proportional to
+         *
+         * @return the number of pixels of the picture arrays
+         */
+        long pixels() {
+            return (long) pictureRGB.length * pictureRGB[0].length;
+        }
+    }
+
+    /**
+     * Private method to test if an array can hold the picture
+     *
+     * @param array the array to be tested
+     * @return true if the array has at least height rows of at least width columns
+     */
+    private boolean fits(int[][] array) {
+        return array.length >= height && array[0].length >= width;
+    }
+
+    /**
+     * Private method to compute the energy values of a block of rows
+     *
+     * @param fromRow the first row, inclusive
+     * @param toRow   the last row, exclusive
+     */
+    private void computeEnergy(int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; row++) {
+            computeEnergyRow(row, 0, width);
+        }
+    }
+
+    /**
+     * Private class to compute the energy values of a block of rows in parallel. Every pixel's
+     * energy only reads the RGB values, so the result is the same as the sequential pass.
+     */
+    @SuppressWarnings("serial")
+    private class EnergyTask extends RecursiveAction {
+        private final int fromRow;
+        private final int toRow;
+
+        EnergyTask(int fromRow, int toRow) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        protected void compute() {
+            if ((long) (toRow - fromRow) * width <= PARALLEL_ENERGY_PIXELS || toRow - fromRow < 2) {
+                computeEnergy(fromRow, toRow);
+                return;
             }
+            int mid = (fromRow + toRow) >>> 1;
+            invokeAll(new EnergyTask(fromRow, mid), new EnergyTask(mid, toRow));
         }
     }
 
@@ -81,8 +417,15 @@ public class SeamCarver {
         int temp = width;
         width = height;
         height = temp;
-        double[][] transposedMatrix = new double[height][width];
-        int[][] transposedRGB = new int[height][width];
+
+        /* The picture only ever shrinks, so the spare arrays sized for the transposed original
+           picture can be reused for every later transpose */
+        if (spareRGB == null) {
+            spareMatrix = new double[pictureRGB[0].length][pictureRGB.length];
+            spareRGB = new int[pictureRGB[0].length][pictureRGB.length];
+        }
+        double[][] transposedMatrix = spareMatrix;
+        int[][] transposedRGB = spareRGB;
 
         // Transposing of the pixels
         for (int row = 0; row < height; row++) {
@@ -91,16 +434,34 @@ public class SeamCarver {
                 transposedRGB[row][col] = pictureRGB[col][row];
             }
         }
+        spareMatrix = matrix;
+        spareRGB = pictureRGB;
         matrix = transposedMatrix;
         pictureRGB = transposedRGB;
+        transposed = !transposed;
     }
 
     /**
-     * Method to return the current picture
+     * Private method to transpose the picture only if it is not already in the given orientation
+     *
+     * @param toTransposed whether the arrays should hold the transposed picture
+     */
+    private void orient(boolean toTransposed) {
+        if (transposed != toTransposed) {
+            transpose();
+        }
+    }
+
+    /**
+     * Method to return the current picture. The picture is built once and returned again until
+     * the next seam is removed or inserted, so callers must not modify it.
      *
      * @return the current picture
      */
     public Picture picture() {
+        if (cachedPicture != null) {
+            return cachedPicture;
+        }
         Picture pic = new Picture(width,
                                   height);                   // Creation of a blank Picture canvas
 
@@ -111,9 +472,25 @@ public class SeamCarver {
             }
         }
 
+        cachedPicture = pic;
         return pic;
     }
 
+    /**
+     * Method to return the current picture as a new image of type TYPE_INT_RGB, copying each row
+     * straight into the image's backing int array
+     *
+     * @return the current picture
+     */
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(pictureRGB[row], 0, data, row * width, width);
+        }
+        return image;
+    }
+
     /**
      * Method to return the width of the current picture
      *
@@ -132,6 +509,39 @@ public class SeamCarver {
         return height;
     }
 
+    /**
+     * Method to choose the cost the seam search minimises. Backward energy, the default, removes
+     * the pixels of lowest energy; forward energy removes the seam that introduces the least new
+     * energy into the picture, which leaves fewer artifacts along edges.
+     *
+     * @param seamEnergy the cost of a seam
+     */
+    public void setSeamEnergy(SeamEnergy seamEnergy) {
+        if (seamEnergy == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        this.seamEnergy = seamEnergy;
+    }
+
+    /**
+     * Method to make resizeTo carve coarse-to-fine. This is a single downsampling level, not a
+     * multi-level pyramid: seams are first found on the picture downsampled once by the given
+     * factor, then refined at full resolution within a band of about three blocks around the
+     * coarse seam, and one coarse seam guides factor seams. The coarse seam uses the same seam
+     * energy as the fine ones, backward on the mean energy of each block or forward on its mean
+     * colour. This cuts the cost of a seam by roughly the factor on large pictures, but the
+     * seams are no longer guaranteed to be optimal. The GREEDY order and
+     * findVerticalSeam/findHorizontalSeam always search exactly.
+     *
+     * @param factor the downsampling factor, 1 to carve exactly
+     */
+    public void setPyramidFactor(int factor) {
+        if (factor < 1 || factor > 64) {
+            throw new IllegalArgumentException("Factor outside prescribed range!");
+        }
+        this.pyramidFactor = factor;
+    }
+
     /**
      * Method to compute the energy of a pixel
      *
@@ -147,71 +557,18 @@ public class SeamCarver {
             throw new IllegalArgumentException("y outside prescribed range!");
         }
 
-        if (x == 0 || y == 0 || y == height() - 1 || x == width() - 1) {
-            return 1000.0;
-        }
-
-        return Math.sqrt(xGradient(x, y) + yGradient(x, y));
+        return matrix[y][x];
     }
 
     /**
-     * Private method to calculate the square of the x-gradient
+     * Private method to compute the energy values of a range of pixels in a row
      *
-     * @param x the x coordinate
-     * @param y the y coordinate
-     * @return the x-gradient
+     * @param row     the row
+     * @param fromCol the first column, inclusive
+     * @param toCol   the last column, exclusive
      */
-    private double xGradient(int x, int y) {
-        int leftPixelRGB = pictureRGB[y][x - 1];
-        int rightPixelRGB = pictureRGB[y][x + 1];
-
-        int leftPixelR = (leftPixelRGB >> 16) & 0xFF;
-        int leftPixelG = (leftPixelRGB >> 8) & 0xFF;
-        int leftPixelB = (leftPixelRGB) & 0xFF;
-
-        int rightPixelR = (rightPixelRGB >> 16) & 0xFF;
-        int rightPixelG = (rightPixelRGB >> 8) & 0xFF;
-        int rightPixelB = (rightPixelRGB) & 0xFF;
-
-        return Math.pow(rightPixelR - leftPixelR, 2) + Math.pow(rightPixelG - leftPixelG, 2) + Math
-                .pow(rightPixelB - leftPixelB, 2);
-    }
-
-    /**
-     * Private method to calculate the square of the y-gradient
-     *
-     * @param x the x coordinate
-     * @param y the y coordinate
-     * @return the y-gradient
-     */
-    private double yGradient(int x, int y) {
-        int topPixelRGB = pictureRGB[y - 1][x];
-        int bottomPixelRGB = pictureRGB[y + 1][x];
-        int topPixelR = (topPixelRGB >> 16) & 0xFF;
-        int topPixelG = (topPixelRGB >> 8) & 0xFF;
-        int topPixelB = (topPixelRGB) & 0xFF;
-        int bottomPixelR = (bottomPixelRGB >> 16) & 0xFF;
-        int bottomPixelG = (bottomPixelRGB >> 8) & 0xFF;
-        int bottomPixelB = (bottomPixelRGB) & 0xFF;
-
-        return Math.pow(bottomPixelR - topPixelR, 2) + Math.pow(bottomPixelG - topPixelG, 2) + Math
-                .pow(bottomPixelB - topPixelB, 2);
-    }
-
-    /**
-     * Private method to initialize the distance 2D array
-     */
-    private void initialization() {
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                if (i == 0) {
-                    distTo[i][j] = 1000.00;
-                }
-                else {
-                    distTo[i][j] = Double.POSITIVE_INFINITY;
-                }
-            }
-        }
+    private void computeEnergyRow(int row, int fromCol, int toCol) {
+        energyFunction.energyRow(pictureRGB, width, height, row, fromCol, toCol, matrix[row]);
     }
 
     /**
@@ -236,79 +593,301 @@ public class SeamCarver {
     }
 
     /**
-     * Private method to find seams
+     * Private method to allocate the DP buffers, which are sized for the original picture in
+     * either orientation so that every later seam can reuse them
+     */
+    private void ensureSeamBuffers() {
+        if (edgeTo == null) {
+            int rows = pictureRGB.length;
+            int cols = pictureRGB[0].length;
+            edgeTo = new byte[rows * cols];
+            distTo = new double[Math.max(rows, cols)];
+            distNext = new double[Math.max(rows, cols)];
+        }
+    }
+
+    /**
+     * Private method to find seams. Only two rows of distances are kept, the parent of each pixel
+     * is stored as a column offset in a flat array reused across calls.
      *
      * @return int[] array containing values of the seam
      */
     private int[] findSeam() {
-        distTo = new double[height][width];
-        edgeTo = new Coord[height][width];
+        ensureSeamBuffers();
+        double[] dist = distTo;
+        double[] next = distNext;
 
-        initialization();
+        /* The first row can only be reached from the top */
+        firstRow(dist, 0, width);
 
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                if (testPosition(i, j).equals("LAST_ROW")) {
-                }
-                else if (width == 1) {
-                    relax(i, j, i + 1, j);
-                }
-                else if (testPosition(i, j).equals("LAST_COL")) {
-                    relax(i, j, i + 1, j);
-                    relax(i, j, i + 1, j - 1);
-                }
-                else if (testPosition(i, j).equals("FIRST_COL")) {
-                    relax(i, j, i, j + 1);
-                    relax(i, j, i + 1, j + 1);
-                }
-                else {
-                    relax(i, j, i + 1, j - 1);
-                    relax(i, j, i + 1, j);
-                    relax(i, j, i + 1, j + 1);
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int blocks = Math.min(width / PARALLEL_DP_COLUMNS, 2 * parallelism);
+        if (parallelism > 1 && blocks > 1 && height > PARALLEL_DP_BAND) {
+            if (bandDist == null || bandDist.length < 2 * blocks || bandDist[0].length < width) {
+                bandDist = new double[2 * blocks][width];
+            }
+            for (int row = 1; row < height; row += PARALLEL_DP_BAND) {
+                int toRow = Math.min(row + PARALLEL_DP_BAND, height);
+                ForkJoinPool.commonPool().invoke(new BandTask(row, toRow, dist, next, blocks, 0,
+                                                              blocks));
+                double[] temp = dist;
+                dist = next;
+                next = temp;
+            }
+        }
+        else {
+            for (int row = 1; row < height; row++) {
+                relaxRow(row, dist, next, 0, width);
+                double[] temp = dist;
+                dist = next;
+                next = temp;
+            }
+        }
+
+        return traceSeam(dist, 0, width);
+    }
+
+    /**
+     * Private method to find a seam that stays within a band of columns in each row. Distances
+     * outside the band are treated as infinite.
+     *
+     * @param lo the first column of the band in each row
+     * @param hi the last column of the band in each row
+     * @return int[] array containing values of the seam, or null if the band holds no seam
+     */
+    private int[] findSeamInBand(int[] lo, int[] hi) {
+        ensureSeamBuffers();
+        double[] dist = distTo;
+        double[] next = distNext;
+
+        firstRow(dist, lo[0], hi[0] + 1);
+        for (int row = 1; row < height; row++) {
+            /* Parents just outside the band of the row above are unreachable */
+            int from = Math.max(lo[row] - 1, 0);
+            int to = Math.min(hi[row] + 1, width - 1);
+            for (int col = from; col <= to; col++) {
+                if (col < lo[row - 1] || col > hi[row - 1]) {
+                    dist[col] = Double.POSITIVE_INFINITY;
                 }
             }
+            relaxRow(row, dist, next, lo[row], hi[row] + 1);
+            double[] temp = dist;
+            dist = next;
+            next = temp;
+        }
+
+        int[] seam = traceSeam(dist, lo[height - 1], hi[height - 1] + 1);
+        return seamCost == Double.POSITIVE_INFINITY ? null : seam;
+    }
+
+    /**
+     * Private method to initialize the distances of a range of pixels in the first row
+     *
+     * @param dist    the distances of the first row
+     * @param fromCol the first column, inclusive
+     * @param toCol   the last column, exclusive
+     */
+    private void firstRow(double[] dist, int fromCol, int toCol) {
+        if (seamEnergy == SeamEnergy.FORWARD) {
+            int[] first = pictureRGB[0];
+            for (int col = fromCol; col < toCol; col++) {
+                dist[col] = colourDistance(first[Math.max(col - 1, 0)],
+                                           first[Math.min(col + 1, width - 1)]);
+            }
+        }
+        else {
+            System.arraycopy(matrix[0], fromCol, dist, fromCol, toCol - fromCol);
         }
+    }
 
+    /**
+     * Private method to pick the end of the seam with the smallest distance in the last row and
+     * trace its parents back to the first row
+     *
+     * @param dist    the distances of the last row
+     * @param fromCol the first column the seam can end in, inclusive
+     * @param toCol   the last column the seam can end in, exclusive
+     * @return int[] array containing values of the seam
+     */
+    private int[] traceSeam(double[] dist, int fromCol, int toCol) {
         /* From the last row of distances, get the index with the smallest distance */
-        double min = distTo[height - 1][0];
-        int minX = 0;
-        for (int k = 1; k < width; k++) {
-            if (distTo[height - 1][k] < min) {
-                min = distTo[height - 1][k];
+        double min = dist[fromCol];
+        int minX = fromCol;
+        for (int k = fromCol + 1; k < toCol; k++) {
+            if (dist[k] < min) {
+                min = dist[k];
                 minX = k;
             }
         }
+        seamCost = min;
 
         /* Get the edges by back tracing the path */
         int[] seam = new int[height];
         seam[height - 1] = minX;
-        int j = height - 1;
-        int i = minX;
-        int k = height - 2;
-        while (edgeTo[j][i] != null) {
-            seam[k] = edgeTo[j][i].getX();
-            k--;
-            Coord temp = edgeTo[j][i];
-            j = temp.getY();
-            i = temp.getX();
+        for (int row = height - 1; row > 0; row--) {
+            seam[row - 1] = seam[row] + edgeTo[row * width + seam[row]];
         }
         return seam;
     }
 
     /**
-     * Private method to relax edges
+     * Private method to compute the distances of a range of pixels in a row from the row above
+     *
+     * @param row     the row whose distances are computed
+     * @param dist    the distances of the row above
+     * @param next    the distances of the row being computed
+     * @param fromCol the first column, inclusive
+     * @param toCol   the last column, exclusive
+     */
+    private void relaxRow(int row, double[] dist, double[] next, int fromCol, int toCol) {
+        if (seamEnergy == SeamEnergy.FORWARD) {
+            relaxRowForward(row, dist, next, fromCol, toCol);
+            return;
+        }
+        double[] energyRow = matrix[row];
+        int base = row * width;
+        for (int col = fromCol; col < toCol; col++) {
+            // On ties the leftmost parent wins
+            int parent = col;
+            if (col > 0 && dist[col - 1] <= dist[col]) {
+                parent = col - 1;
+            }
+            if (col < width - 1 && dist[col + 1] < dist[parent]) {
+                parent = col + 1;
+            }
+            next[col] = dist[parent] + energyRow[col];
+            edgeTo[base + col] = (byte) (parent - col);
+        }
+    }
+
+    /**
+     * Private method to compute the forward energy distances of a range of pixels in a row.
+     * Removing a pixel makes its left and right neighbours adjacent, and also makes the pixel
+     * above adjacent to one of them when the seam moves diagonally, so each of the three parents
+     * costs the colour distances between the pixels that become neighbours. Outside the picture
+     * the edge pixel is repeated.
      *
-     * @param y current y coordinate
-     * @param x current x coordinate
-     * @param u next  y coordinate
-     * @param w next x coordinate
+     * @param row     the row whose distances are computed
+     * @param dist    the distances of the row above
+     * @param next    the distances of the row being computed
+     * @param fromCol the first column, inclusive
+     * @param toCol   the last column, exclusive
      */
-    private void relax(int y, int x, int u, int w) {
-        if (distTo[u][w] > matrix[u][w] + distTo[y][x]) {
-            distTo[u][w] = matrix[u][w] + distTo[y][x];
-            edgeTo[u][w] = new Coord(y, x);
+    private void relaxRowForward(int row, double[] dist, double[] next, int fromCol, int toCol) {
+        int[] above = pictureRGB[row - 1];
+        int[] current = pictureRGB[row];
+        int base = row * width;
+        int last = width - 1;
+        for (int col = fromCol; col < toCol; col++) {
+            int left = current[col > 0 ? col - 1 : col];
+            int right = current[col < last ? col + 1 : col];
+            int up = above[col];
+            double costUp = colourDistance(left, right);
+
+            // On ties the leftmost parent wins
+            int parent = col;
+            double min = dist[col] + costUp;
+            if (col > 0) {
+                double viaLeft = dist[col - 1] + costUp + colourDistance(up, left);
+                if (viaLeft <= min) {
+                    min = viaLeft;
+                    parent = col - 1;
+                }
+            }
+            if (col < last) {
+                double viaRight = dist[col + 1] + costUp + colourDistance(up, right);
+                if (viaRight < min) {
+                    min = viaRight;
+                    parent = col + 1;
+                }
+            }
+            next[col] = min;
+            edgeTo[base + col] = (byte) (parent - col);
+        }
+    }
+
+    /**
+     * Private method to calculate the distance between the colours of two pixels
+     *
+     * @param a the RGB value of the first pixel
+     * @param b the RGB value of the second pixel
+     * @return the square root of the sum of the squared red, green and blue differences
+     */
+    private static double colourDistance(int a, int b) {
+        int r = ((a >> 16) & 0xFF) - ((b >> 16) & 0xFF);
+        int g = ((a >> 8) & 0xFF) - ((b >> 8) & 0xFF);
+        int bl = (a & 0xFF) - (b & 0xFF);
+        return Math.sqrt(r * r + g * g + bl * bl);
+    }
+
+    /**
+     * Private method to relax a band of rows for one block of columns, independently of the
+     * other blocks. A pixel's distance depends on at most one more column per row on each side,
+     * so the block is widened by the band's height in the first row and narrowed by one column
+     * per row. The widened columns are also relaxed by the neighbouring blocks from the same
+     * distances, so they get the same values and parents.
+     *
+     * @param fromRow the first row of the band, inclusive
+     * @param toRow   the last row of the band, exclusive
+     * @param dist    the distances of the row above the band
+     * @param next    the array the distances of the band's last row are written to
+     * @param block   the block of columns
+     * @param blocks  the number of blocks the columns are split into
+     */
+    private void relaxBand(int fromRow, int toRow, double[] dist, double[] next, int block,
+                           int blocks) {
+        int fromCol = (int) ((long) width * block / blocks);
+        int toCol = (int) ((long) width * (block + 1) / blocks);
+        int halo = toRow - fromRow;
+        double[] above = bandDist[2 * block];
+        double[] current = bandDist[2 * block + 1];
+        int lo = Math.max(fromCol - halo, 0);
+        System.arraycopy(dist, lo, above, lo, Math.min(toCol + halo, width) - lo);
+        for (int row = fromRow; row < toRow; row++) {
+            halo--;
+            relaxRow(row, above, current, Math.max(fromCol - halo, 0),
+                     Math.min(toCol + halo, width));
+            double[] temp = above;
+            above = current;
+            current = temp;
+        }
+        System.arraycopy(above, fromCol, next, fromCol, toCol - fromCol);
+    }
+
+    /**
+     * Private class to relax a band of rows with one task per block of columns, so the tasks
+     * only join once per band instead of once per row
+     */
+    @SuppressWarnings("serial")
+    private class BandTask extends RecursiveAction {
+        private final int fromRow;
+        private final int toRow;
+        private final double[] dist;
+        private final double[] next;
+        private final int blocks;
+        private final int fromBlock;
+        private final int toBlock;
+
+        BandTask(int fromRow, int toRow, double[] dist, double[] next, int blocks, int fromBlock,
+                 int toBlock) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.dist = dist;
+            this.next = next;
+            this.blocks = blocks;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
         }
 
+        protected void compute() {
+            if (toBlock - fromBlock == 1) {
+                relaxBand(fromRow, toRow, dist, next, fromBlock, blocks);
+                return;
+            }
+            int mid = (fromBlock + toBlock) >>> 1;
+            invokeAll(new BandTask(fromRow, toRow, dist, next, blocks, fromBlock, mid),
+                      new BandTask(fromRow, toRow, dist, next, blocks, mid, toBlock));
+        }
     }
 
     /**
@@ -341,8 +920,9 @@ public class SeamCarver {
             throw new IllegalArgumentException("Height of picture less than or equal to 1!");
         }
 
+        redoLog.clear();
         transpose();
-        removeVerticalSeam(seam);
+        removeSeam(seam);
         transpose();
     }
 
@@ -376,54 +956,787 @@ public class SeamCarver {
             throw new IllegalArgumentException("Width of picture less than or equal to 1!");
         }
 
+        redoLog.clear();
+        removeSeam(seam);
+    }
+
+    /**
+     * Private method to remove an already validated vertical seam. Only the energies next to the
+     * seam are recomputed, the rest of each row is shifted along with its pixels.
+     *
+     * @param seam to be removed
+     */
+    private void removeSeam(int[] seam) {
+        cachedPicture = null;
+        if (history) {
+            int[] pixels = new int[seam.length];
+            for (int i = 0; i < seam.length; i++) {
+                pixels[i] = pictureRGB[i][seam[i]];
+            }
+            undoLog.push(new SeamRecord(transposed, seam, pixels));
+        }
+        if (seamLog != null) {
+            seamLog.add(seam);
+        }
+
         /* Shifting of RGB and energy array values */
         for (int i = 0; i < seam.length; i++) {
-            if (seam[i] == width - 1) {
-                pictureRGB[i][width - 1] = 0;
-                matrix[i][width - 1] = 0.0;
-            }
-            else {
-                System.arraycopy(pictureRGB[i], seam[i] + 1, pictureRGB[i], seam[i],
-                                 width - 1 - seam[i]);
-                pictureRGB[i][width - 1] = 0;
-                System.arraycopy(matrix[i], seam[i] + 1, matrix[i], seam[i],
-                                 width - 1 - seam[i]);
-                matrix[i][width - 1] = 0;
-            }
+            System.arraycopy(pictureRGB[i], seam[i] + 1, pictureRGB[i], seam[i],
+                             width - 1 - seam[i]);
+            pictureRGB[i][width - 1] = 0;
+            System.arraycopy(matrix[i], seam[i] + 1, matrix[i], seam[i],
+                             width - 1 - seam[i]);
+            matrix[i][width - 1] = 0;
         }
         width--;
 
-        /* Recalculation of energy values */
+        /* Recalculation of energy values, a pixel's energy only changes if a pixel it reads
+           was on the seam or shifted differently from itself */
+        int radius = energyFunction.radius();
         for (int i = 0; i < seam.length; i++) {
-            if (i == 0 || i == seam.length - 1) {
-                continue;
+            int lo = seam[i];
+            int hi = seam[i];
+            for (int k = Math.max(i - radius, 0); k <= Math.min(i + radius, seam.length - 1); k++) {
+                lo = Math.min(lo, seam[k]);
+                hi = Math.max(hi, seam[k]);
+            }
+            computeEnergyRow(i, Math.max(lo - radius, 0), Math.min(hi + radius, width));
+        }
+    }
+
+    /**
+     * Method to carve the picture down to the given size in one call. The seams are found and
+     * removed internally, so they are not revalidated and the picture is only transposed when
+     * the seam orientation changes.
+     *
+     * @param targetWidth  the width of the resulting picture
+     * @param targetHeight the height of the resulting picture
+     * @param order        the order in which vertical and horizontal seams are removed
+     * @return the carved picture
+     */
+    public Picture resizeTo(int targetWidth, int targetHeight, SeamOrder order) {
+        resize(targetWidth, targetHeight, order);
+        return picture();
+    }
+
+    /**
+     * Method to carve the picture down to the given size without building the resulting picture
+     *
+     * @param targetWidth  the width of the resulting picture
+     * @param targetHeight the height of the resulting picture
+     * @param order        the order in which vertical and horizontal seams are removed
+     */
+    void resize(int targetWidth, int targetHeight, SeamOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        if (targetWidth < 1 || targetWidth > width) {
+            throw new IllegalArgumentException("Target width outside prescribed range!");
+        }
+        if (targetHeight < 1 || targetHeight > height) {
+            throw new IllegalArgumentException("Target height outside prescribed range!");
+        }
+
+        int verticalSeams = width - targetWidth;
+        int horizontalSeams = height - targetHeight;
+        redoLog.clear();
+
+        if (order == SeamOrder.HORIZONTAL_FIRST) {
+            carve(true, horizontalSeams);
+            carve(false, verticalSeams);
+        }
+        else if (order == SeamOrder.VERTICAL_FIRST) {
+            carve(false, verticalSeams);
+            carve(true, horizontalSeams);
+        }
+        else {
+            while (verticalSeams > 0 && horizontalSeams > 0) {
+                /* Compare the cheapest seam of each orientation, starting from the current one
+                   so that the picture is transposed at most twice per seam */
+                int[] current = findSeam();
+                double currentCost = seamCost;
+                transpose();
+                int[] other = findSeam();
+                if (currentCost <= seamCost) {
+                    transpose();
+                    removeSeam(current);
+                }
+                else {
+                    removeSeam(other);
+                }
+
+                if (transposed) {
+                    horizontalSeams--;
+                }
+                else {
+                    verticalSeams--;
+                }
+            }
+            carve(false, verticalSeams);
+            carve(true, horizontalSeams);
+        }
+        orient(false);
+    }
+
+    /**
+     * Method to carve the picture down to the given size, removing all vertical seams first
+     *
+     * @param targetWidth  the width of the resulting picture
+     * @param targetHeight the height of the resulting picture
+     * @return the carved picture
+     */
+    public Picture resizeTo(int targetWidth, int targetHeight) {
+        return resizeTo(targetWidth, targetHeight, SeamOrder.VERTICAL_FIRST);
+    }
+
+    /**
+     * Private method to remove a number of seams of one orientation
+     *
+     * @param horizontal whether horizontal seams are removed
+     * @param count      the number of seams to remove
+     */
+    private void carve(boolean horizontal, int count) {
+        if (count == 0) {
+            return;
+        }
+        orient(horizontal);
+        int k = 0;
+        if (pyramidFactor > 1) {
+            while (k < count && width >= 4 * pyramidFactor && height >= 2 * pyramidFactor) {
+                k += carveCoarseToFine(count - k);
+            }
+        }
+        for (; k < count; k++) {
+            removeSeam(findSeam());
+        }
+    }
+
+    /**
+     * Private method to remove up to pyramidFactor seams guided by one seam of the picture
+     * downsampled by pyramidFactor. The coarse seam is found with the same seam energy on the
+     * mean of each block of pixels, then each full resolution seam is the cheapest one within
+     * pyramidFactor pixels of the coarse seam's blocks.
+     *
+     * @param remaining the number of seams still to be removed
+     * @return the number of seams removed
+     */
+    private int carveCoarseToFine(int remaining) {
+        int factor = pyramidFactor;
+        int[] coarseSeam = findCoarseSeam(factor);
+
+        int[] lo = new int[height];
+        int[] hi = new int[height];
+        int removed = 0;
+        while (removed < Math.min(factor, remaining)) {
+            for (int row = 0; row < height; row++) {
+                int block = coarseSeam[row / factor] * factor;
+                lo[row] = Math.min(Math.max(block - factor, 0), width - 1);
+                hi[row] = Math.min(block + 2 * factor - 1, width - 1);
+            }
+            int[] seam = findSeamInBand(lo, hi);
+            removeSeam(seam != null ? seam : findSeam());
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Private method to find the seam of the picture downsampled by the given factor. With
+     * backward energy each coarse pixel has the mean energy of its block of pixels, with forward
+     * energy the mean colour of its block.
+     *
+     * @param factor the downsampling factor
+     * @return int[] array containing the block column of the seam in each block row
+     */
+    private int[] findCoarseSeam(int factor) {
+        int rows = (height + factor - 1) / factor;
+        int cols = (width + factor - 1) / factor;
+
+        byte[][] parent = new byte[rows][cols];
+        double[] dist = seamEnergy == SeamEnergy.FORWARD
+                        ? relaxCoarseForward(factor, rows, cols, parent)
+                        : relaxCoarse(factor, rows, cols, parent);
+
+        int[] seam = new int[rows];
+        for (int col = 1; col < cols; col++) {
+            if (dist[col] < dist[seam[rows - 1]]) {
+                seam[rows - 1] = col;
             }
-            for (int j = 0; j < width; j++) {
-                matrix[i][j] = energy(j, i);
+        }
+        for (int row = rows - 1; row > 0; row--) {
+            seam[row - 1] = seam[row] + parent[row][seam[row]];
+        }
+        return seam;
+    }
+
+    /**
+     * Private method to run the backward energy DP of findSeam on the mean energy of each block
+     *
+     * @param factor the size of a block
+     * @param rows   the number of rows of blocks
+     * @param cols   the number of columns of blocks
+     * @param parent the array the column offset of each block's parent is written to
+     * @return the distances of the last row of blocks
+     */
+    private double[] relaxCoarse(int factor, int rows, int cols, byte[][] parent) {
+        /* Mean energy of each block */
+        double[][] coarse = new double[rows][cols];
+        for (int row = 0; row < height; row++) {
+            double[] energyRow = matrix[row];
+            double[] coarseRow = coarse[row / factor];
+            for (int col = 0; col < width; col++) {
+                coarseRow[col / factor] += energyRow[col];
             }
         }
+        for (int row = 0; row < rows; row++) {
+            int blockHeight = Math.min(factor, height - row * factor);
+            for (int col = 0; col < cols; col++) {
+                coarse[row][col] /= blockHeight * Math.min(factor, width - col * factor);
+            }
+        }
+
+        /* Same DP as findSeam on the coarse picture */
+        double[] dist = coarse[0].clone();
+        double[] next = new double[cols];
+        for (int row = 1; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int p = col;
+                if (col > 0 && dist[col - 1] <= dist[col]) {
+                    p = col - 1;
+                }
+                if (col < cols - 1 && dist[col + 1] < dist[p]) {
+                    p = col + 1;
+                }
+                next[col] = dist[p] + coarse[row][col];
+                parent[row][col] = (byte) (p - col);
+            }
+            double[] temp = dist;
+            dist = next;
+            next = temp;
+        }
+        return dist;
     }
 
     /**
-     * Private method to test if a pixel belongs to any special region
+     * Private method to run the forward energy DP of relaxRowForward on the mean colour of each
+     * block, so the coarse seam avoids the same edges as the full resolution seams it guides
      *
-     * @param y coordinate
-     * @param x coordinate
-     * @return String value which states if the pixel belongs to any special region
+     * @param factor the size of a block
+     * @param rows   the number of rows of blocks
+     * @param cols   the number of columns of blocks
+     * @param parent the array the column offset of each block's parent is written to
+     * @return the distances of the last row of blocks
      */
-    private String testPosition(int y, int x) {
-        if (y == height - 1) {
-            return "LAST_ROW";
+    private double[] relaxCoarseForward(int factor, int rows, int cols, byte[][] parent) {
+        /* Mean colour of each block, summed channel by channel */
+        int[][] sums = new int[rows][3 * cols];
+        for (int row = 0; row < height; row++) {
+            int[] rgbRow = pictureRGB[row];
+            int[] sumRow = sums[row / factor];
+            for (int col = 0; col < width; col++) {
+                int rgb = rgbRow[col];
+                int block = 3 * (col / factor);
+                sumRow[block] += (rgb >> 16) & 0xFF;
+                sumRow[block + 1] += (rgb >> 8) & 0xFF;
+                sumRow[block + 2] += rgb & 0xFF;
+            }
         }
-        else if (x == width - 1) {
-            return "LAST_COL";
+        int[][] coarse = new int[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            int blockHeight = Math.min(factor, height - row * factor);
+            for (int col = 0; col < cols; col++) {
+                int pixels = blockHeight * Math.min(factor, width - col * factor);
+                coarse[row][col] = (sums[row][3 * col] / pixels) << 16
+                        | (sums[row][3 * col + 1] / pixels) << 8
+                        | sums[row][3 * col + 2] / pixels;
+            }
         }
-        else if (x == 0) {
-            return "FIRST_COL";
+
+        /* Same DP as relaxRowForward on the coarse picture */
+        double[] dist = new double[cols];
+        double[] next = new double[cols];
+        int last = cols - 1;
+        for (int col = 0; col < cols; col++) {
+            dist[col] = colourDistance(coarse[0][Math.max(col - 1, 0)],
+                                       coarse[0][Math.min(col + 1, last)]);
+        }
+        for (int row = 1; row < rows; row++) {
+            int[] above = coarse[row - 1];
+            int[] current = coarse[row];
+            for (int col = 0; col < cols; col++) {
+                int left = current[col > 0 ? col - 1 : col];
+                int right = current[col < last ? col + 1 : col];
+                int up = above[col];
+                double costUp = colourDistance(left, right);
+
+                int p = col;
+                double min = dist[col] + costUp;
+                if (col > 0) {
+                    double viaLeft = dist[col - 1] + costUp + colourDistance(up, left);
+                    if (viaLeft <= min) {
+                        min = viaLeft;
+                        p = col - 1;
+                    }
+                }
+                if (col < last) {
+                    double viaRight = dist[col + 1] + costUp + colourDistance(up, right);
+                    if (viaRight < min) {
+                        min = viaRight;
+                        p = col + 1;
+                    }
+                }
+                next[col] = min;
+                parent[row][col] = (byte) (p - col);
+            }
+            double[] temp = dist;
+            dist = next;
+            next = temp;
+        }
+        return dist;
+    }
+
+    /**
+     * Method to turn the log of removed seams on or off. While it is on, every removed seam and
+     * its pixels are logged, about one int per pixel of the seam, so that removals can be undone
+     * without carving again. Turning it off discards the log.
+     *
+     * @param enabled whether removed seams are logged
+     */
+    public void setHistoryEnabled(boolean enabled) {
+        history = enabled;
+        if (!enabled) {
+            undoLog.clear();
+            redoLog.clear();
+        }
+    }
+
+    /**
+     * Method to put back the last removed seam. The picture is never transposed: a seam of
+     * either orientation is put back by shifting the pixels after it in each row, or below it in
+     * each column, which moves half the picture on average in sequential copies, and the energy
+     * is only recomputed next to the seam.
+     *
+     * @return true if a seam was put back, false if the log is empty
+     */
+    public boolean undo() {
+        if (undoLog.isEmpty()) {
+            return false;
+        }
+        undoStep();
+        orient(false);
+        return true;
+    }
+
+    /**
+     * Method to remove again the last seam put back by undo, without searching for it, at the
+     * same cost as undo
+     *
+     * @return true if a seam was removed, false if nothing was undone since the last removal
+     */
+    public boolean redo() {
+        if (redoLog.isEmpty()) {
+            return false;
+        }
+        redoStep();
+        orient(false);
+        return true;
+    }
+
+    /**
+     * Method to undo or redo removals until the picture has the given size, such as when a width
+     * slider is dragged back and forth. Sizes reached by earlier removals can be restored, as
+     * long as no other seam was removed after undoing them. Each step costs the same as undo, so
+     * restoring k seams moves about k times half the picture and never transposes it, whatever
+     * the orientations of the logged seams.
+     *
+     * @param targetWidth  the width to restore
+     * @param targetHeight the height to restore
+     * @return true if the picture now has the given size, false if the log does not reach it
+     */
+    public boolean restoreTo(int targetWidth, int targetHeight) {
+        // The steps may leave the arrays transposed, so compare against the untransposed size
+        while (!undoLog.isEmpty() && (transposed ? height < targetWidth || width < targetHeight
+                                                 : width < targetWidth || height < targetHeight)) {
+            undoStep();
+        }
+        while (!redoLog.isEmpty() && (transposed ? height > targetWidth || width > targetHeight
+                                                 : width > targetWidth || height > targetHeight)) {
+            redoStep();
+        }
+        orient(false);
+        return width == targetWidth && height == targetHeight;
+    }
+
+    /**
+     * Private method to put back the last removed seam, in the orientation it was removed in
+     */
+    private void undoStep() {
+        SeamRecord record = undoLog.pop();
+        if (record.horizontal == transposed) {
+            insertSeam(record.seam(), record.pixels);
+        }
+        else {
+            insertSeamAcross(record.seam(), record.pixels);
+        }
+        redoLog.push(record);
+    }
+
+    /**
+     * Private method to remove the last seam put back, in the orientation it was removed in
+     */
+    private void redoStep() {
+        SeamRecord record = redoLog.pop();
+        if (record.horizontal == transposed) {
+            removeSeam(record.seam());
         }
         else {
-            return "NORM";
+            removeSeamAcross(record.seam());
+        }
+    }
+
+    /**
+     * Private method to remove a seam of the other orientation than the arrays, so a row in
+     * each column, without transposing. Each column below the seam moves up a row, copied row by
+     * row so that memory is read in order.
+     *
+     * @param seam the row of the seam in each column
+     */
+    private void removeSeamAcross(int[] seam) {
+        cachedPicture = null;
+        if (history) {
+            int[] pixels = new int[seam.length];
+            for (int col = 0; col < seam.length; col++) {
+                pixels[col] = pictureRGB[seam[col]][col];
+            }
+            undoLog.push(new SeamRecord(!transposed, seam, pixels));
+        }
+
+        int top = height;
+        for (int row : seam) {
+            top = Math.min(top, row);
+        }
+        for (int row = top; row < height - 1; row++) {
+            int[] rgbRow = pictureRGB[row];
+            int[] rgbBelow = pictureRGB[row + 1];
+            double[] energyRow = matrix[row];
+            double[] energyBelow = matrix[row + 1];
+            for (int col = 0; col < width; col++) {
+                if (seam[col] <= row) {
+                    rgbRow[col] = rgbBelow[col];
+                    energyRow[col] = energyBelow[col];
+                }
+            }
+        }
+        Arrays.fill(pictureRGB[height - 1], 0, width, 0);
+        Arrays.fill(matrix[height - 1], 0, width, 0);
+        height--;
+        recomputeAcross(seam, 0);
+    }
+
+    /**
+     * Private method to insert a seam of the other orientation than the arrays, so a row in each
+     * column, without transposing. The reverse of removeSeamAcross.
+     *
+     * @param seam   the row of the inserted pixel in each column
+     * @param pixels the RGB values of the inserted pixels
+     */
+    private void insertSeamAcross(int[] seam, int[] pixels) {
+        cachedPicture = null;
+        int top = height;
+        for (int row : seam) {
+            top = Math.min(top, row);
+        }
+        for (int row = height; row > top; row--) {
+            int[] rgbRow = pictureRGB[row];
+            int[] rgbAbove = pictureRGB[row - 1];
+            double[] energyRow = matrix[row];
+            double[] energyAbove = matrix[row - 1];
+            for (int col = 0; col < width; col++) {
+                if (seam[col] < row) {
+                    rgbRow[col] = rgbAbove[col];
+                    energyRow[col] = energyAbove[col];
+                }
+            }
+        }
+        for (int col = 0; col < width; col++) {
+            pictureRGB[seam[col]][col] = pixels[col];
+        }
+        height++;
+        recomputeAcross(seam, 1);
+    }
+
+    /**
+     * Private method to recompute the energy next to a seam of the other orientation than the
+     * arrays after it was removed or inserted. These are the pixels removeSeam or insertSeam
+     * would recompute on the transpose, gathered into runs of columns in each row.
+     *
+     * @param seam  the row of the seam in each column
+     * @param extra 1 if the seam was inserted, so its own pixels are recomputed, 0 if removed
+     */
+    private void recomputeAcross(int[] seam, int extra) {
+        int radius = energyFunction.radius();
+        int[] from = new int[width];
+        int[] to = new int[width];
+        int first = height;
+        int last = 0;
+        for (int col = 0; col < width; col++) {
+            int lo = seam[col];
+            int hi = seam[col];
+            for (int k = Math.max(col - radius, 0); k <= Math.min(col + radius, width - 1); k++) {
+                lo = Math.min(lo, seam[k]);
+                hi = Math.max(hi, seam[k]);
+            }
+            from[col] = Math.max(lo - radius, 0);
+            to[col] = Math.min(hi + radius + extra, height);
+            first = Math.min(first, from[col]);
+            last = Math.max(last, to[col]);
+        }
+
+        for (int row = first; row < last; row++) {
+            int col = 0;
+            while (col < width) {
+                if (from[col] > row || to[col] <= row) {
+                    col++;
+                    continue;
+                }
+                int start = col;
+                while (col < width && from[col] <= row && row < to[col]) {
+                    col++;
+                }
+                computeEnergyRow(row, start, col);
+            }
+        }
+    }
+
+    /**
+     * Private method to insert a vertical seam of pixels, the reverse of removeSeam. Only the
+     * energies next to the seam are recomputed.
+     *
+     * @param seam   the column of the inserted pixel in each row
+     * @param pixels the RGB values of the inserted pixels
+     */
+    private void insertSeam(int[] seam, int[] pixels) {
+        cachedPicture = null;
+        for (int i = 0; i < seam.length; i++) {
+            System.arraycopy(pictureRGB[i], seam[i], pictureRGB[i], seam[i] + 1,
+                             width - seam[i]);
+            pictureRGB[i][seam[i]] = pixels[i];
+            System.arraycopy(matrix[i], seam[i], matrix[i], seam[i] + 1, width - seam[i]);
+        }
+        width++;
+
+        int radius = energyFunction.radius();
+        for (int i = 0; i < seam.length; i++) {
+            int lo = seam[i];
+            int hi = seam[i];
+            for (int k = Math.max(i - radius, 0); k <= Math.min(i + radius, seam.length - 1); k++) {
+                lo = Math.min(lo, seam[k]);
+                hi = Math.max(hi, seam[k]);
+            }
+            computeEnergyRow(i, Math.max(lo - radius, 0), Math.min(hi + radius + 1, width));
+        }
+    }
+
+    /**
+     * Method to enlarge the picture by inserting seams. The seams that carving would remove are
+     * found first, then each of their pixels is duplicated, the copy being the average of the
+     * pixel and its right neighbour. At most half the current size is added per round so that
+     * the same seams are not stretched over and over. Enlarging clears the log of removed
+     * seams, since the inserted pixels were never removed.
+     *
+     * @param targetWidth  the width of the resulting picture
+     * @param targetHeight the height of the resulting picture
+     * @return the enlarged picture
+     */
+    public Picture enlargeTo(int targetWidth, int targetHeight) {
+        if (targetWidth < width) {
+            throw new IllegalArgumentException("Target width outside prescribed range!");
+        }
+        if (targetHeight < height) {
+            throw new IllegalArgumentException("Target height outside prescribed range!");
+        }
+
+        int verticalSeams = targetWidth - width;
+        int horizontalSeams = targetHeight - height;
+        undoLog.clear();
+        redoLog.clear();
+        enlarge(false, verticalSeams);
+        enlarge(true, horizontalSeams);
+        orient(false);
+
+        return picture();
+    }
+
+    /**
+     * Private method to insert a number of seams of one orientation
+     *
+     * @param horizontal whether horizontal seams are inserted
+     * @param count      the number of seams to insert
+     */
+    private void enlarge(boolean horizontal, int count) {
+        if (count == 0) {
+            return;
+        }
+        orient(horizontal);
+        boolean logging = history;
+        history = true;
+        while (count > 0) {
+            int round = Math.min(count, Math.max(1, width / 2));
+            int[][] seams = new int[round][];
+            if (width == 1) {
+                seams[0] = new int[height];
+            }
+            else {
+                /* Carve the seams with logging on, then put them back */
+                carve(horizontal, round);
+                for (int t = round - 1; t >= 0; t--) {
+                    SeamRecord record = undoLog.pop();
+                    seams[t] = record.seam();
+                    insertSeam(seams[t], record.pixels);
+                }
+            }
+            insertDuplicates(originalColumns(seams, width));
+            count -= round;
+        }
+        history = logging;
+    }
+
+    /**
+     * Private method to convert seams from the columns of the picture they were removed from to
+     * the columns of the picture before any of them was removed. In each row a Fenwick tree of
+     * the columns not yet removed gives the column holding the i-th remaining pixel.
+     *
+     * @param seams the seams in the order they were removed
+     * @param width the width of the picture before any of them was removed
+     * @return the seams in columns of the original picture
+     */
+    private static int[][] originalColumns(int[][] seams, int width) {
+        int height = seams.length == 0 ? 0 : seams[0].length;
+        int[][] columns = new int[seams.length][height];
+        int[] tree = new int[width + 1];
+        int top = Integer.highestOneBit(width);
+        for (int row = 0; row < height; row++) {
+            /* Every column present: node i covers the lowest set bit of i columns */
+            for (int i = 1; i <= width; i++) {
+                tree[i] = i & -i;
+            }
+            for (int t = 0; t < seams.length; t++) {
+                // Find the smallest column with seams[t][row] + 1 columns present up to it
+                int pos = 0;
+                int rank = seams[t][row] + 1;
+                for (int step = top; step > 0; step >>= 1) {
+                    if (pos + step <= width && tree[pos + step] < rank) {
+                        pos += step;
+                        rank -= tree[pos];
+                    }
+                }
+                columns[t][row] = pos;
+                for (int i = pos + 1; i <= width; i += i & -i) {
+                    tree[i]--;
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Private method to duplicate the pixels of vertical seams, growing the picture arrays
+     *
+     * @param columns the column of each seam in each row, in the current picture
+     */
+    private void insertDuplicates(int[][] columns) {
+        cachedPicture = null;
+        int newWidth = width + columns.length;
+        int[][] rgb = new int[height][newWidth];
+        int[] cols = new int[columns.length];
+        for (int row = 0; row < height; row++) {
+            for (int t = 0; t < columns.length; t++) {
+                cols[t] = columns[t][row];
+            }
+            Arrays.sort(cols);
+
+            int[] source = pictureRGB[row];
+            int out = 0;
+            int next = 0;
+            for (int col = 0; col < width; col++) {
+                rgb[row][out++] = source[col];
+                if (next < cols.length && cols[next] == col) {
+                    rgb[row][out++] = average(source[col], source[Math.min(col + 1, width - 1)]);
+                    next++;
+                }
+            }
+        }
+
+        /* The arrays are no longer large enough, let the spare and DP ones be allocated again */
+        pictureRGB = rgb;
+        matrix = new double[height][newWidth];
+        spareRGB = null;
+        spareMatrix = null;
+        edgeTo = null;
+        width = newWidth;
+        computeAllEnergy();
+    }
+
+    /**
+     * Private method to average the colours of two pixels, keeping the alpha of the first
+     *
+     * @param a the RGB value of the first pixel
+     * @param b the RGB value of the second pixel
+     * @return the RGB value of the average colour
+     */
+    private static int average(int a, int b) {
+        int r = (((a >> 16) & 0xFF) + ((b >> 16) & 0xFF)) / 2;
+        int g = (((a >> 8) & 0xFF) + ((b >> 8) & 0xFF)) / 2;
+        int bl = ((a & 0xFF) + (b & 0xFF)) / 2;
+        return (a & 0xFF000000) | (r << 16) | (g << 8) | bl;
+    }
+
+    /**
+     * Method to compute the order in which carving removes the pixels of the current picture,
+     * for both vertical and horizontal seams. The picture can then be retargeted to any size
+     * from the index alone. Each orientation is carved down to a single pixel on a copy, so this
+     * carver is left unchanged, and the copy uses the same energy function and seam settings.
+     *
+     * @return the removal index of the current picture
+     */
+    public SeamIndex seamIndex() {
+        Picture current = picture();
+        return new SeamIndex(width, height, removalRanks(current, false),
+                             removalRanks(current, true));
+    }
+
+    /**
+     * Private method to compute the step at which carving removes each pixel
+     *
+     * @param current    the current picture
+     * @param horizontal whether horizontal seams are removed
+     * @return the step of each pixel row by row, the size minus 1 for the pixels never removed
+     */
+    private int[] removalRanks(Picture current, boolean horizontal) {
+        SeamCarver sc = new SeamCarver(current, energyFunction);
+        sc.seamEnergy = seamEnergy;
+        sc.pyramidFactor = pyramidFactor;
+        int size = horizontal ? height : width;
+        sc.seamLog = new ArrayList<>(size - 1);
+        sc.carve(horizontal, size - 1);
+
+        // Only the seams are logged, the removed pixels are not needed
+        int[][] columns = originalColumns(sc.seamLog.toArray(new int[0][]), size);
+
+        int[] ranks = new int[width * height];
+        Arrays.fill(ranks, size - 1);
+        for (int t = 0; t < columns.length; t++) {
+            for (int i = 0; i < columns[t].length; i++) {
+                // Horizontal seams were carved from the transpose, with rows and columns swapped
+                if (horizontal) {
+                    ranks[columns[t][i] * width + i] = t;
+                }
+                else {
+                    ranks[i * width + columns[t][i]] = t;
+                }
+            }
         }
+        return ranks;
     }
 
     public static void main(String[] args) {
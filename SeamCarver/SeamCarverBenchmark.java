@@ -0,0 +1,361 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Throughput benchmark for SeamCarver on synthetic pictures
+ **************************************************************************** */
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public class SeamCarverBenchmark {
+
+    /**
+     * Method to create a picture filled with random colours
+     *
+     * @param width  the width of the picture
+     * @param height the height of the picture
+     * @return the random picture
+     */
+    public static Picture randomPicture(int width, int height) {
+        Picture picture = new Picture(width, height);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                picture.setRGB(col, row, StdRandom.uniform(0x1000000));
+            }
+        }
+        return picture;
+    }
+
+    /**
+     * Method to carve the picture seam by seam through the public API, the way callers had to
+     * before resizeTo existed
+     *
+     * @param picture      the picture to carve
+     * @param targetWidth  the width of the resulting picture
+     * @param targetHeight the height of the resulting picture
+     * @return the carved picture
+     */
+    private static Picture resizeBySeams(Picture picture, int targetWidth, int targetHeight) {
+        SeamCarver sc = new SeamCarver(picture);
+        while (sc.width() > targetWidth) {
+            sc.removeVerticalSeam(sc.findVerticalSeam());
+        }
+        while (sc.height() > targetHeight) {
+            sc.removeHorizontalSeam(sc.findHorizontalSeam());
+        }
+        return sc.picture();
+    }
+
+    /**
+     * Private method to compute every energy value with Math.pow and Math.sqrt, the way the
+     * constructor used to, as a baseline for the integer kernel
+     *
+     * @param rgb    the RGB values of the picture
+     * @param energy the array the energy values are written to
+     */
+    private static void powEnergy(int[][] rgb, double[][] energy) {
+        int height = rgb.length;
+        int width = rgb[0].length;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x == 0 || y == 0 || y == height - 1 || x == width - 1) {
+                    energy[y][x] = 1000.0;
+                    continue;
+                }
+                double dx = 0;
+                double dy = 0;
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    dx += Math.pow(((rgb[y][x + 1] >> shift) & 0xFF)
+                                           - ((rgb[y][x - 1] >> shift) & 0xFF), 2);
+                    dy += Math.pow(((rgb[y + 1][x] >> shift) & 0xFF)
+                                           - ((rgb[y - 1][x] >> shift) & 0xFF), 2);
+                }
+                energy[y][x] = Math.sqrt(dx + dy);
+            }
+        }
+    }
+
+    /**
+     * Method to compare the Math.pow energy baseline with the row kernel of each energy function
+     *
+     * @param picture the picture to compute the energy of
+     * @param trials  the number of timed runs
+     */
+    private static void energyKernels(Picture picture, int trials) {
+        double megapixels = picture.width() * (double) picture.height() / 1e6;
+        int[][] rgb = new int[picture.height()][picture.width()];
+        for (int row = 0; row < picture.height(); row++) {
+            for (int col = 0; col < picture.width(); col++) {
+                rgb[row][col] = picture.getRGB(col, row);
+            }
+        }
+        double[][] energy = new double[picture.height()][picture.width()];
+        powEnergy(rgb, energy);
+
+        Stopwatch timer = new Stopwatch();
+        for (int t = 0; t < trials; t++) {
+            powEnergy(rgb, energy);
+        }
+        double seconds = timer.elapsedTime() / trials;
+        StdOut.printf("energy Math.pow           %6.3f s  %8.3f MP/s%n", seconds,
+                      megapixels / seconds);
+
+        EnergyFunction[] functions = {
+                new DualGradientEnergy(), new DualGradientEnergy(true), new SobelEnergy(),
+                new SaliencyWeightedEnergy(new DualGradientEnergy(), picture, 2.0)
+        };
+        String[] names = { "dual-gradient", "dual-gradient LUT", "Sobel", "saliency-weighted" };
+        for (int f = 0; f < functions.length; f++) {
+            timer = new Stopwatch();
+            for (int t = 0; t <= trials; t++) {
+                if (t == 1) {
+                    timer = new Stopwatch();    // the first pass only warms up the JIT
+                }
+                for (int row = 0; row < rgb.length; row++) {
+                    functions[f].energyRow(rgb, rgb[0].length, rgb.length, row, 0, rgb[0].length,
+                                           energy[row]);
+                }
+            }
+            seconds = timer.elapsedTime() / trials;
+            StdOut.printf("energy %-18s %6.3f s  %8.3f MP/s%n", names[f], seconds,
+                          megapixels / seconds);
+        }
+    }
+
+    /**
+     * Method to time the energy computation of the constructor and a single seam search with
+     * backward and forward energy, the passes that are split across the common pool for large
+     * pictures
+     *
+     * @param picture the picture to carve
+     * @param trials  the number of timed runs
+     */
+    private static void passes(Picture picture, int trials) {
+        double megapixels = picture.width() * (double) picture.height() / 1e6;
+        SeamCarver sc = new SeamCarver(picture);
+        sc.findVerticalSeam();
+
+        Stopwatch timer = new Stopwatch();
+        for (int t = 0; t < trials; t++) {
+            sc = new SeamCarver(picture);
+        }
+        double seconds = timer.elapsedTime() / trials;
+        StdOut.printf("constructor               %6.3f s  %8.3f MP/s%n", seconds,
+                      megapixels / seconds);
+
+        for (SeamCarver.SeamEnergy seamEnergy : SeamCarver.SeamEnergy.values()) {
+            sc.setSeamEnergy(seamEnergy);
+            sc.findVerticalSeam();
+            timer = new Stopwatch();
+            for (int t = 0; t < trials; t++) {
+                sc.findVerticalSeam();
+            }
+            seconds = timer.elapsedTime() / trials;
+            StdOut.printf("findVerticalSeam %-8s %6.3f s  %8.3f MP/s%n", seamEnergy, seconds,
+                          megapixels / seconds);
+        }
+    }
+
+    /**
+     * Method to time resizing to half the width and three quarters of the height
+     *
+     * @param picture the picture to resize
+     * @param trials  the number of timed runs
+     */
+    private static void resize(Picture picture, int trials) {
+        double megapixels = picture.width() * (double) picture.height() / 1e6;
+        int targetWidth = picture.width() / 2;
+        int targetHeight = picture.height() * 3 / 4;
+
+        // Untimed run to let the JIT compile the carving loops
+        resizeBySeams(picture, targetWidth, targetHeight);
+        new SeamCarver(picture).resizeTo(targetWidth, targetHeight, SeamCarver.SeamOrder.GREEDY);
+
+        for (SeamCarver.SeamOrder order : SeamCarver.SeamOrder.values()) {
+            Stopwatch timer = new Stopwatch();
+            for (int t = 0; t < trials; t++) {
+                new SeamCarver(picture).resizeTo(targetWidth, targetHeight, order);
+            }
+            double seconds = timer.elapsedTime() / trials;
+            StdOut.printf("resizeTo %-16s %6.2f s  %8.3f MP/s%n", order, seconds,
+                          megapixels / seconds);
+        }
+
+        Stopwatch timer = new Stopwatch();
+        for (int t = 0; t < trials; t++) {
+            resizeBySeams(picture, targetWidth, targetHeight);
+        }
+        double seconds = timer.elapsedTime() / trials;
+        StdOut.printf("find/remove loop          %6.2f s  %8.3f MP/s%n", seconds,
+                      megapixels / seconds);
+    }
+
+    /**
+     * Method to compare getting pixels in and out of a carver through Picture, a pixel at a time,
+     * with the bulk copies of the BufferedImage constructor and toBufferedImage. The images are
+     * the picture decoded by ImageIO from PNG, which gives TYPE_3BYTE_BGR as CarvingService
+     * sees, and the TYPE_INT_RGB image toBufferedImage returns.
+     *
+     * @param picture the picture to copy
+     * @param trials  the number of timed runs
+     */
+    private static void interop(Picture picture, int trials) {
+        double megapixels = picture.width() * (double) picture.height() / 1e6;
+        BufferedImage intImage = new SeamCarver(picture).toBufferedImage();
+        BufferedImage decoded;
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(intImage, "png", png);
+            decoded = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        BufferedImage[] images = { decoded, intImage };
+        String[] names = { "decoded PNG", "TYPE_INT_RGB" };
+        EnergyFunction energyFunction = new DualGradientEnergy();
+        SeamCarver sc = null;
+
+        for (int pass = 0; pass <= 1; pass++) {
+            // The first pass only warms up the JIT
+            Stopwatch timer = new Stopwatch();
+            for (int t = 0; t < trials; t++) {
+                sc = new SeamCarver(picture, energyFunction);
+                sc.picture();
+            }
+            double seconds = timer.elapsedTime() / trials;
+            if (pass == 1) {
+                StdOut.printf("in and out Picture        %6.3f s  %8.3f MP/s%n", seconds,
+                              megapixels / seconds);
+            }
+
+            for (int k = 0; k < images.length; k++) {
+                timer = new Stopwatch();
+                for (int t = 0; t < trials; t++) {
+                    sc = new SeamCarver(images[k], energyFunction);
+                    sc.toBufferedImage();
+                }
+                seconds = timer.elapsedTime() / trials;
+                if (pass == 1) {
+                    StdOut.printf("in and out %-14s %6.3f s  %8.3f MP/s%n", names[k], seconds,
+                                  megapixels / seconds);
+                }
+            }
+        }
+    }
+
+    /**
+     * Private method to sum the energy of every pixel of a picture
+     *
+     * @param picture the picture
+     * @return the total energy
+     */
+    private static double totalEnergy(Picture picture) {
+        SeamCarver sc = new SeamCarver(picture);
+        double total = 0;
+        for (int row = 0; row < sc.height(); row++) {
+            for (int col = 0; col < sc.width(); col++) {
+                total += sc.energy(col, row);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Method to compare coarse-to-fine carving with exact carving when removing 30% of the
+     * width. Quality is reported as the energy kept in the carved picture relative to exact
+     * carving, which keeps as much energy as possible, and as the fraction of pixels equal to
+     * the exact result.
+     *
+     * @param picture the picture to carve
+     * @param trials  the number of timed runs
+     */
+    private static void pyramid(Picture picture, int trials) {
+        double megapixels = picture.width() * (double) picture.height() / 1e6;
+        int targetWidth = picture.width() * 7 / 10;
+        Picture exact = null;
+        double exactEnergy = 0;
+
+        for (int factor = 1; factor <= 16; factor *= 2) {
+            Picture carved = null;
+            Stopwatch timer = new Stopwatch();
+            for (int t = 0; t < trials; t++) {
+                SeamCarver sc = new SeamCarver(picture);
+                sc.setPyramidFactor(factor);
+                carved = sc.resizeTo(targetWidth, picture.height());
+            }
+            double seconds = timer.elapsedTime() / trials;
+
+            double energy = totalEnergy(carved);
+            if (exact == null) {
+                exact = carved;
+                exactEnergy = energy;
+            }
+            int same = 0;
+            for (int row = 0; row < carved.height(); row++) {
+                for (int col = 0; col < carved.width(); col++) {
+                    if (carved.getRGB(col, row) == exact.getRGB(col, row)) {
+                        same++;
+                    }
+                }
+            }
+            StdOut.printf("pyramid factor %-2d %6.2f s  %8.3f MP/s  energy kept %6.4f  "
+                                  + "same pixels %6.4f%n", factor, seconds, megapixels / seconds,
+                          energy / exactEnergy,
+                          same / ((double) carved.width() * carved.height()));
+        }
+    }
+
+    /**
+     * Runs the benchmark on a random picture, or on the picture file given as the first argument
+     *
+     * @param args [file] or [width height], optionally followed by the number of trials and the
+     *             name of the only benchmark to run (energy, passes, interop, resize
+     *             or pyramid)
+     */
+    public static void main(String[] args) {
+        Picture picture;
+        int next;
+        if (args.length >= 2 && args[0].matches("\\d+")) {
+            picture = randomPicture(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+            next = 2;
+        }
+        else if (args.length >= 1) {
+            picture = new Picture(args[0]);
+            next = 1;
+        }
+        else {
+            picture = randomPicture(512, 512);
+            next = 0;
+        }
+        int trials = args.length > next ? Integer.parseInt(args[next]) : 3;
+        String only = args.length > next + 1 ? args[next + 1] : "";
+
+        StdOut.printf("%d-by-%d picture, %d trials%n", picture.width(), picture.height(),
+                      trials);
+        if (only.isEmpty() || only.equals("energy")) {
+            energyKernels(picture, trials);
+        }
+        if (only.isEmpty() || only.equals("passes")) {
+            passes(picture, trials);
+        }
+        if (only.isEmpty() || only.equals("interop")) {
+            interop(picture, trials);
+        }
+        if (only.isEmpty() || only.equals("resize")) {
+            resize(picture, trials);
+        }
+        if (only.isEmpty() || only.equals("pyramid")) {
+            pyramid(picture, trials);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Precomputed seam removal order for retargeting to any size
+ **************************************************************************** */
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Index of the step at which seam carving removes each pixel of a picture, built by
+ * SeamCarver.seamIndex(). Carving to width w removes exactly the pixels removed by the first
+ * width - w vertical seams, so any width (or height) is produced by a single pass keeping the
+ * pixels whose rank is at least that number, without carving again.
+ */
+public class SeamIndex {
+
+    private static final int MAGIC = 0x53454958;    // "SEIX", first int of a saved index
+
+    private final int width;                        // width of the indexed picture
+    private final int height;                       // height of the indexed picture
+    private final Ranks verticalRank;               // step of the vertical seam removing a pixel
+    private final Ranks horizontalRank;             // step of the horizontal seam removing it
+
+    /**
+     * Private class to hold the ranks of one orientation, 2 bytes each when there are at most
+     * 65536 distinct ranks, as in a saved index, and 4 bytes otherwise
+     */
+    private static final class Ranks {
+
+        private final char[] small;     // the ranks if there are at most 65536, else null
+        private final int[] large;      // the ranks otherwise, else null
+
+        private Ranks(char[] small, int[] large) {
+            this.small = small;
+            this.large = large;
+        }
+
+        /**
+         * Method to pack ranks into as few bytes as their range allows
+         *
+         * @param ranks the ranks
+         * @param size  the number of distinct ranks
+         * @return the packed ranks
+         */
+        static Ranks of(int[] ranks, int size) {
+            if (size > 1 << 16) {
+                return new Ranks(null, ranks);
+            }
+            char[] small = new char[ranks.length];
+            for (int i = 0; i < ranks.length; i++) {
+                small[i] = (char) ranks[i];
+            }
+            return new Ranks(small, null);
+        }
+
+        /**
+         * Method to return a rank
+         *
+         * @param i the index of the pixel, row by row
+         * @return the rank of the pixel
+         */
+        int get(int i) {
+            return small != null ? small[i] : large[i];
+        }
+    }
+
+    /**
+     * Constructor for SeamIndex
+     *
+     * @param width          the width of the indexed picture
+     * @param height         the height of the indexed picture
+     * @param verticalRank   the step of the vertical seam removing each pixel, row by row
+     * @param horizontalRank the step of the horizontal seam removing each pixel, row by row
+     */
+    SeamIndex(int width, int height, int[] verticalRank, int[] horizontalRank) {
+        this.width = width;
+        this.height = height;
+        this.verticalRank = Ranks.of(verticalRank, width);
+        this.horizontalRank = Ranks.of(horizontalRank, height);
+    }
+
+    /**
+     * Private constructor for an index whose ranks are already packed
+     *
+     * @param width          the width of the indexed picture
+     * @param height         the height of the indexed picture
+     * @param verticalRank   the step of the vertical seam removing each pixel
+     * @param horizontalRank the step of the horizontal seam removing each pixel
+     */
+    private SeamIndex(int width, int height, Ranks verticalRank, Ranks horizontalRank) {
+        this.width = width;
+        this.height = height;
+        this.verticalRank = verticalRank;
+        this.horizontalRank = horizontalRank;
+    }
+
+    /**
+     * Method to return the width of the indexed picture
+     *
+     * @return the width of the indexed picture
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Method to return the height of the indexed picture
+     *
+     * @return the height of the indexed picture
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Method to retarget the indexed picture. When only one dimension changes the result is
+     * exactly what carving seams of that orientation gives. When both change, the vertical
+     * seams are applied first, then each column keeps the pixels removed last by horizontal
+     * seams, which approximates carving the narrowed picture again.
+     *
+     * @param picture      the indexed picture
+     * @param targetWidth  the width of the resulting picture
+     * @param targetHeight the height of the resulting picture
+     * @return the retargeted picture
+     */
+    public Picture retarget(Picture picture, int targetWidth, int targetHeight) {
+        if (picture == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        if (picture.width() != width || picture.height() != height) {
+            throw new IllegalArgumentException("Picture does not match the index!");
+        }
+        if (targetWidth < 1 || targetWidth > width) {
+            throw new IllegalArgumentException("Target width outside prescribed range!");
+        }
+        if (targetHeight < 1 || targetHeight > height) {
+            throw new IllegalArgumentException("Target height outside prescribed range!");
+        }
+
+        /* Index of the original pixel at each position of the narrowed picture */
+        int[] kept = new int[targetWidth * height];
+        int threshold = width - targetWidth;
+        int k = 0;
+        for (int i = 0; i < width * height; i++) {
+            if (verticalRank.get(i) >= threshold) {
+                kept[k++] = i;
+            }
+        }
+
+        Picture result = new Picture(targetWidth, targetHeight);
+        if (targetHeight == height) {
+            for (int i = 0; i < kept.length; i++) {
+                result.setRGB(i % targetWidth, i / targetWidth,
+                              picture.getRGB(kept[i] % width, kept[i] / width));
+            }
+            return result;
+        }
+
+        /* Keep the targetHeight pixels of each column with the highest horizontal rank */
+        int[] ranks = new int[height];
+        for (int col = 0; col < targetWidth; col++) {
+            for (int row = 0; row < height; row++) {
+                ranks[row] = horizontalRank.get(kept[row * targetWidth + col]);
+            }
+            int[] sorted = ranks.clone();
+            Arrays.sort(sorted);
+            int cutoff = sorted[height - targetHeight];
+            int above = 0;
+            for (int rank : ranks) {
+                if (rank > cutoff) {
+                    above++;
+                }
+            }
+
+            // Pixels ranked at the cutoff are kept top to bottom until the column is full
+            int atCutoff = targetHeight - above;
+            int out = 0;
+            for (int row = 0; row < height; row++) {
+                if (ranks[row] > cutoff || (ranks[row] == cutoff && atCutoff-- > 0)) {
+                    int i = kept[row * targetWidth + col];
+                    result.setRGB(col, out++, picture.getRGB(i % width, i / width));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method to save the index to a file. Ranks take 2 bytes per pixel and orientation when the
+     * picture is at most 65536 pixels in that direction, 4 bytes otherwise.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            writeRanks(out, verticalRank);
+            writeRanks(out, horizontalRank);
+        }
+    }
+
+    /**
+     * Private method to write ranks in as few bytes as their range allows
+     *
+     * @param out   the stream to write to
+     * @param ranks the ranks
+     * @throws IOException if the ranks cannot be written
+     */
+    private static void writeRanks(DataOutputStream out, Ranks ranks) throws IOException {
+        if (ranks.small != null) {
+            for (char rank : ranks.small) {
+                out.writeChar(rank);
+            }
+        }
+        else {
+            for (int rank : ranks.large) {
+                out.writeInt(rank);
+            }
+        }
+    }
+
+    /**
+     * Method to load an index saved by save
+     *
+     * @param file the file to read
+     * @return the index
+     * @throws IOException if the file cannot be read or is not a valid index
+     */
+    public static SeamIndex load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a seam index: " + file);
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
+                throw new IOException("Invalid dimensions in seam index: " + file);
+            }
+            long pixels = (long) width * height;
+            long rankBytes = pixels * ((width <= 1 << 16 ? 2 : 4) + (height <= 1 << 16 ? 2 : 4));
+            if (file.length() != 12 + rankBytes) {
+                throw new IOException("Seam index length does not match its dimensions: " + file);
+            }
+            Ranks verticalRank = readRanks(in, (int) pixels, width);
+            Ranks horizontalRank = readRanks(in, (int) pixels, height);
+            return new SeamIndex(width, height, verticalRank, horizontalRank);
+        }
+    }
+
+    /**
+     * Private method to read ranks written by writeRanks
+     *
+     * @param in     the stream to read from
+     * @param pixels the number of ranks
+     * @param size   the number of distinct ranks
+     * @return the ranks
+     * @throws IOException if the ranks cannot be read or one is out of range
+     */
+    private static Ranks readRanks(DataInputStream in, int pixels, int size) throws IOException {
+        if (size <= 1 << 16) {
+            char[] ranks = new char[pixels];
+            for (int i = 0; i < pixels; i++) {
+                ranks[i] = in.readChar();
+                if (ranks[i] >= size) {
+                    throw new IOException("Seam index rank outside prescribed range!");
+                }
+            }
+            return new Ranks(ranks, null);
+        }
+        int[] ranks = new int[pixels];
+        for (int i = 0; i < pixels; i++) {
+            ranks[i] = in.readInt();
+            if (ranks[i] < 0 || ranks[i] >= size) {
+                throw new IOException("Seam index rank outside prescribed range!");
+            }
+        }
+        return new Ranks(null, ranks);
+    }
+
+    /**
+     * Builds the index of a picture and saves it, or retargets a picture with a saved index
+     *
+     * @param args picture and index file, optionally followed by the target width, target height
+     *             and output picture to retarget instead
+     */
+    public static void main(String[] args) throws IOException {
+        Picture picture = new Picture(args[0]);
+        File file = new File(args[1]);
+        if (args.length < 5) {
+            new SeamCarver(picture).seamIndex().save(file);
+            StdOut.println("saved index of " + picture.width() + "-by-" + picture.height()
+                                   + " picture to " + file);
+            return;
+        }
+
+        SeamIndex index = load(file);
+        index.retarget(picture, Integer.parseInt(args[2]), Integer.parseInt(args[3]))
+             .save(args[4]);
+    }
+}
@@ -0,0 +1,417 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Out-of-core seam carver for pictures larger than the heap
+ **************************************************************************** */
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Seam carver keeping the picture in a memory-mapped file instead of the heap. The file holds
+ * the RGB value of every pixel as a big-endian int, row after row. Energy values are computed a
+ * row at a time while searching for a seam, and the parent of each pixel is stored in 2 bits of a
+ * temporary mapped file, so the heap only holds a few rows of values. Energy functions index rows
+ * by their number, so the rows in use are also reachable from an array of one reference per row,
+ * 4 or 8 bytes per row of the picture. Only vertical seams are supported, since horizontal ones
+ * would read the file column by column.
+ */
+public class StreamingSeamCarver implements AutoCloseable {
+
+    private static final long MAP_BYTES = 1L << 30;    // largest region of a file mapped at once
+
+    private final EnergyFunction energyFunction;        // function computing the energy values
+    private final RandomAccessFile pixelFile;           // file of RGB values
+    private final RandomAccessFile parentFile;          // temporary file of parent offsets
+    private final File parentPath;                      // path of the temporary file
+    private final IntBuffer[] pixelMaps;                // mapped regions of the RGB values
+    private final MappedByteBuffer[] parentMaps;        // mapped regions of the parent offsets
+    private final int stride;                           // ints per row of the RGB file
+    private final int parentStride;                     // bytes per row of the parent file
+    private final int rowsPerPixelMap;                  // rows in each region of the RGB file
+    private final int rowsPerParentMap;                 // rows in each region of the parent file
+    private final int[][] window;                       // rows around the current one, else null
+    private final int[][] ring;                         // arrays the rows of the window use
+    private final double[] energy;                      // energy values of the current row
+    private double[] distTo;                            // distances to the previous row
+    private double[] distNext;                          // distances to the current row
+    private final byte[] packed;                        // parent offsets of the current row
+    private final int height;                           // height of the picture
+    private int width;                                  // width of the picture
+
+    /**
+     * Constructor for StreamingSeamCarver. Seams are removed from the file in place, so its rows
+     * keep their original length and only the first width() values of each are in use. The
+     * temporary file of parent offsets, a quarter of a byte per pixel, is created next to the
+     * file of RGB values.
+     *
+     * @param file           the file of RGB values, width * height big-endian ints
+     * @param width          the width of the picture
+     * @param height         the height of the picture
+     * @param energyFunction the energy function
+     * @throws IOException if the files cannot be created or mapped
+     */
+    public StreamingSeamCarver(File file, int width, int height, EnergyFunction energyFunction)
+            throws IOException {
+        this(file, width, height, energyFunction,
+             file == null ? null : file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Constructor for StreamingSeamCarver with the directory of the temporary file of parent
+     * offsets, which takes a quarter of a byte per pixel
+     *
+     * @param file           the file of RGB values, width * height big-endian ints
+     * @param width          the width of the picture
+     * @param height         the height of the picture
+     * @param energyFunction the energy function
+     * @param tempDir        the directory of the temporary file of parent offsets
+     * @throws IOException if the files cannot be created or mapped
+     */
+    public StreamingSeamCarver(File file, int width, int height, EnergyFunction energyFunction,
+                               File tempDir) throws IOException {
+        if (file == null || energyFunction == null || tempDir == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Dimensions must be positive!");
+        }
+        if (file.length() != 4L * width * height) {
+            throw new IllegalArgumentException("File length does not match the dimensions!");
+        }
+        this.energyFunction = energyFunction;
+        this.width = width;
+        this.height = height;
+        this.stride = width;
+        this.parentStride = (width + 3) / 4;
+        this.rowsPerPixelMap = (int) Math.min(height, Math.max(1, MAP_BYTES / (4L * stride)));
+        this.rowsPerParentMap = (int) Math.min(height, Math.max(1, MAP_BYTES / parentStride));
+        this.pixelMaps = new IntBuffer[(height + rowsPerPixelMap - 1) / rowsPerPixelMap];
+        this.parentMaps = new MappedByteBuffer[(height + rowsPerParentMap - 1) / rowsPerParentMap];
+
+        // Files are closed, and the temporary one deleted, if any step fails
+        RandomAccessFile pixels = null;
+        RandomAccessFile parents = null;
+        File path = null;
+        try {
+            pixels = new RandomAccessFile(file, "rw");
+            for (int i = 0; i < pixelMaps.length; i++) {
+                long rows = Math.min(rowsPerPixelMap, height - (long) i * rowsPerPixelMap);
+                pixelMaps[i] = pixels.getChannel()
+                                     .map(FileChannel.MapMode.READ_WRITE,
+                                          4L * stride * i * rowsPerPixelMap, 4L * stride * rows)
+                                     .asIntBuffer();
+            }
+
+            path = File.createTempFile("parents", ".bin", tempDir);
+            parents = new RandomAccessFile(path, "rw");
+            for (int i = 0; i < parentMaps.length; i++) {
+                long rows = Math.min(rowsPerParentMap, height - (long) i * rowsPerParentMap);
+                parentMaps[i] = parents.getChannel()
+                                       .map(FileChannel.MapMode.READ_WRITE,
+                                            (long) parentStride * i * rowsPerParentMap,
+                                            (long) parentStride * rows);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            closeQuietly(pixels, e);
+            closeQuietly(parents, e);
+            delete(path);
+            throw e;
+        }
+        this.pixelFile = pixels;
+        this.parentFile = parents;
+        this.parentPath = path;
+
+        this.window = new int[height][];
+        this.ring = new int[2 * energyFunction.radius() + 1][stride];
+        this.energy = new double[stride];
+        this.distTo = new double[stride];
+        this.distNext = new double[stride];
+        this.packed = new byte[parentStride];
+    }
+
+    /**
+     * Private method to close a file after a failure, keeping any error as suppressed by it
+     *
+     * @param file    the file, or null if it was not opened
+     * @param failure the failure
+     */
+    private static void closeQuietly(RandomAccessFile file, Exception failure) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        }
+        catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Method to write a picture to a file of RGB values that StreamingSeamCarver can map
+     *
+     * @param picture the picture
+     * @param file    the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeRaw(Picture picture, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            for (int row = 0; row < picture.height(); row++) {
+                for (int col = 0; col < picture.width(); col++) {
+                    out.writeInt(picture.getRGB(col, row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to return the width of the current picture
+     *
+     * @return the width of the current picture
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Method to return the height of the current picture
+     *
+     * @return the height of the current picture
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Method to return the current picture, for pictures small enough to fit in the heap
+     *
+     * @return the current picture
+     */
+    public Picture picture() {
+        Picture pic = new Picture(width, height);
+        int[] rgb = new int[width];
+        for (int row = 0; row < height; row++) {
+            readRow(row, rgb);
+            for (int col = 0; col < width; col++) {
+                pic.setRGB(col, row, rgb[col]);
+            }
+        }
+        return pic;
+    }
+
+    /**
+     * Private method to read the RGB values of a row
+     *
+     * @param row the row
+     * @param rgb the array the values are read into
+     */
+    private void readRow(int row, int[] rgb) {
+        pixelMaps[row / rowsPerPixelMap].get((row % rowsPerPixelMap) * stride, rgb, 0, width);
+    }
+
+    /**
+     * Compute the optimal vertical seam of the picture in a single pass over the file. The rows
+     * the energy function reads are kept in a window that slides down the picture.
+     *
+     * @return int[] array containing values of the vertical seam
+     */
+    public int[] findVerticalSeam() {
+        int radius = energyFunction.radius();
+        for (int row = 0; row < Math.min(radius, height); row++) {
+            window[row] = ring[row % ring.length];
+            readRow(row, window[row]);
+        }
+
+        double[] dist = distTo;
+        double[] next = distNext;
+        for (int row = 0; row < height; row++) {
+            /* Slide the window of rows down by one */
+            if (row - radius - 1 >= 0) {
+                window[row - radius - 1] = null;
+            }
+            if (row + radius < height) {
+                window[row + radius] = ring[(row + radius) % ring.length];
+                readRow(row + radius, window[row + radius]);
+            }
+            energyFunction.energyRow(window, width, height, row, 0, width, energy);
+
+            if (row == 0) {
+                System.arraycopy(energy, 0, dist, 0, width);
+                continue;
+            }
+            Arrays.fill(packed, (byte) 0);
+            for (int col = 0; col < width; col++) {
+                // On ties the leftmost parent wins, as in SeamCarver
+                int parent = col;
+                if (col > 0 && dist[col - 1] <= dist[col]) {
+                    parent = col - 1;
+                }
+                if (col < width - 1 && dist[col + 1] < dist[parent]) {
+                    parent = col + 1;
+                }
+                next[col] = dist[parent] + energy[col];
+                packed[col >> 2] |= (byte) ((parent - col + 1) << ((col & 3) << 1));
+            }
+            parentMaps[row / rowsPerParentMap].put((row % rowsPerParentMap) * parentStride,
+                                                   packed, 0, (width + 3) / 4);
+            double[] temp = dist;
+            dist = next;
+            next = temp;
+        }
+        Arrays.fill(window, Math.max(height - radius - 1, 0), height, null);
+
+        /* From the last row of distances, get the index with the smallest distance */
+        int minX = 0;
+        for (int k = 1; k < width; k++) {
+            if (dist[k] < dist[minX]) {
+                minX = k;
+            }
+        }
+
+        /* Get the edges by back tracing the path */
+        int[] seam = new int[height];
+        seam[height - 1] = minX;
+        for (int row = height - 1; row > 0; row--) {
+            seam[row - 1] = seam[row] + parentOffset(row, seam[row]);
+        }
+        return seam;
+    }
+
+    /**
+     * Private method to read the parent offset of a pixel from the parent file
+     *
+     * @param row the row of the pixel
+     * @param col the column of the pixel
+     * @return the column offset (-1, 0, 1) of the pixel's parent
+     */
+    private int parentOffset(int row, int col) {
+        byte b = parentMaps[row / rowsPerParentMap].get(
+                (row % rowsPerParentMap) * parentStride + (col >> 2));
+        return ((b >> ((col & 3) << 1)) & 3) - 1;
+    }
+
+    /**
+     * Public method to remove the vertical seam, shifting the rest of each row in the file
+     *
+     * @param seam to be removed
+     */
+    public void removeVerticalSeam(int[] seam) {
+        if (seam == null) {
+            throw new IllegalArgumentException("Null arguement detected!");
+        }
+
+        if (seam.length != height) {
+            throw new IllegalArgumentException("Array wrong length!");
+        }
+
+        for (int i = 0; i < seam.length; i++) {
+            if (seam[i] < 0 || seam[i] > width - 1) {
+                throw new IllegalArgumentException("Entry Outside prescribed range!");
+            }
+            if (i != seam.length - 1) {
+                if (Math.abs(seam[i + 1] - seam[i]) > 1) {
+                    throw new IllegalArgumentException(
+                            "Two adjacent entries differ by more than 1!");
+                }
+            }
+        }
+
+        if (width <= 1) {
+            throw new IllegalArgumentException("Width of picture less than or equal to 1!");
+        }
+
+        int[] rgb = ring[0];
+        for (int row = 0; row < height; row++) {
+            int start = (row % rowsPerPixelMap) * stride;
+            IntBuffer map = pixelMaps[row / rowsPerPixelMap];
+            int tail = width - 1 - seam[row];
+            map.get(start + seam[row] + 1, rgb, 0, tail);
+            map.put(start + seam[row], rgb, 0, tail);
+        }
+        width--;
+    }
+
+    /**
+     * Method to carve the picture down to the given width
+     *
+     * @param targetWidth the width of the resulting picture
+     */
+    public void carveTo(int targetWidth) {
+        if (targetWidth < 1 || targetWidth > width) {
+            throw new IllegalArgumentException("Target width outside prescribed range!");
+        }
+        while (width > targetWidth) {
+            removeVerticalSeam(findVerticalSeam());
+        }
+    }
+
+    /**
+     * Method to close the files and delete the temporary parent file. The parent file is closed
+     * and deleted even if the pixel file fails to close.
+     *
+     * @throws IOException if a file cannot be closed
+     */
+    public void close() throws IOException {
+        try {
+            pixelFile.close();
+        }
+        catch (IOException e) {
+            closeQuietly(parentFile, e);
+            delete(parentPath);
+            throw e;
+        }
+        try {
+            parentFile.close();
+        }
+        finally {
+            delete(parentPath);
+        }
+    }
+
+    /**
+     * Private method to delete a temporary file, or have it deleted when the JVM exits if it
+     * cannot be deleted now, for example while a mapping of it is still open on Windows
+     *
+     * @param path the file, or null if it was not created
+     */
+    private static void delete(File path) {
+        if (path != null && !path.delete()) {
+            path.deleteOnExit();
+        }
+    }
+
+    /**
+     * Carves a file of RGB values in place
+     *
+     * @param args file, width, height and target width
+     */
+    public static void main(String[] args) throws IOException {
+        File file = new File(args[0]);
+        int width = Integer.parseInt(args[1]);
+        int height = Integer.parseInt(args[2]);
+        int targetWidth = Integer.parseInt(args[3]);
+
+        Stopwatch timer = new Stopwatch();
+        try (StreamingSeamCarver sc = new StreamingSeamCarver(file, width, height,
+                                                              new DualGradientEnergy())) {
+            sc.carveTo(targetWidth);
+        }
+        StdOut.printf("carved to %d-by-%d in %.2f s%n", targetWidth, height,
+                      timer.elapsedTime());
+    }
+}
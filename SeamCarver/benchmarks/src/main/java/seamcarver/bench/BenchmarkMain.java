@@ -0,0 +1,87 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Runs the JMH benchmarks and summarises them in megapixels per second
+ **************************************************************************** */
+
+package seamcarver.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line, runs the benchmarks with the
+ * GC profiler unless other profilers are given, then prints a summary of each benchmark and size
+ * with the megapixels of the original picture processed per second and the bytes allocated per
+ * operation, so a change to SeamCarver can be compared against a saved baseline.
+ */
+public class BenchmarkMain {
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args JMH options, for example a benchmark name pattern, -p size=3840x2160 or
+     *             -rf json -rff baseline.json
+     */
+    public static void main(String[] args)
+            throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        Options options = builder.build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.printf("%-20s %-10s %12s %10s %14s%n", "Benchmark", "Size", "ms/op", "MP/s",
+                          "bytes/op");
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark();
+            name = name.substring(name.lastIndexOf('.') + 1);
+            String size = result.getParams().getParam("size");
+            String[] dimensions = size.split("x");
+            double megapixels = Integer.parseInt(dimensions[0])
+                    * (double) Integer.parseInt(dimensions[1]) / 1e6;
+
+            // A call of removeVerticalSeam removes a batch of seams, reported per seam
+            int ops = name.equals("removeVerticalSeam") ? SeamCarverBenchmarks.REMOVALS : 1;
+            double milliseconds = result.getPrimaryResult().getScore() / ops;
+            double bytes = allocatedPerOperation(result.getSecondaryResults()) / ops;
+            System.out.printf("%-20s %-10s %12.3f %10.2f %14.0f%n", name, size, milliseconds,
+                              megapixels / (milliseconds / 1000), bytes);
+        }
+    }
+
+    /**
+     * Private method to get the bytes allocated per operation reported by the GC profiler
+     *
+     * @param secondary the secondary results of a benchmark
+     * @return the bytes allocated per operation, or NaN without the GC profiler
+     */
+    private static double allocatedPerOperation(Map<String, Result> secondary) {
+        for (Map.Entry<String, Result> entry : secondary.entrySet()) {
+            // Older JMH versions prefix the profiler results with a middle dot
+            if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+                return entry.getValue().getScore();
+            }
+        }
+        return Double.NaN;
+    }
+}
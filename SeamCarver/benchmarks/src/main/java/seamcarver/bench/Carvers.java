@@ -0,0 +1,178 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: Method handles to SeamCarver for the JMH benchmarks
+ **************************************************************************** */
+
+package seamcarver.bench;
+
+import edu.princeton.cs.algs4.Picture;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+
+/**
+ * Calls into SeamCarver, which lives in the default package like the rest of the assignment.
+ * JMH refuses benchmarks in the default package and packaged code cannot name default package
+ * classes, so the carver is reached through method handles. The handles are static final, so
+ * the JIT inlines them like direct calls.
+ */
+final class Carvers {
+
+    private static final MethodHandle NEW;              // SeamCarver(Picture)
+    private static final MethodHandle FIND_VERTICAL;    // findVerticalSeam()
+    private static final MethodHandle FIND_HORIZONTAL;  // findHorizontalSeam()
+    private static final MethodHandle REMOVE_VERTICAL;  // removeVerticalSeam(int[])
+    private static final MethodHandle RESIZE_TO;        // resizeTo(int, int)
+
+    static {
+        try {
+            Class<?> carver = Class.forName("SeamCarver");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            NEW = lookup.findConstructor(carver, MethodType.methodType(void.class, Picture.class))
+                        .asType(MethodType.methodType(Object.class, Picture.class));
+            FIND_VERTICAL = lookup.findVirtual(carver, "findVerticalSeam",
+                                               MethodType.methodType(int[].class))
+                                  .asType(MethodType.methodType(int[].class, Object.class));
+            FIND_HORIZONTAL = lookup.findVirtual(carver, "findHorizontalSeam",
+                                                 MethodType.methodType(int[].class))
+                                    .asType(MethodType.methodType(int[].class, Object.class));
+            REMOVE_VERTICAL = lookup.findVirtual(carver, "removeVerticalSeam",
+                                                 MethodType.methodType(void.class, int[].class))
+                                    .asType(MethodType.methodType(void.class, Object.class,
+                                                                  int[].class));
+            RESIZE_TO = lookup.findVirtual(carver, "resizeTo",
+                                           MethodType.methodType(Picture.class, int.class,
+                                                                 int.class))
+                              .asType(MethodType.methodType(Picture.class, Object.class,
+                                                            int.class, int.class));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Carvers() {
+    }
+
+    /**
+     * Method to create a seam carver, computing every energy value
+     *
+     * @param picture the picture to carve
+     * @return the seam carver
+     */
+    static Object create(Picture picture) {
+        try {
+            return (Object) NEW.invokeExact(picture);
+        }
+        catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Method to find the optimal vertical seam of a seam carver
+     *
+     * @param carver the seam carver
+     * @return the vertical seam
+     */
+    static int[] findVerticalSeam(Object carver) {
+        try {
+            return (int[]) FIND_VERTICAL.invokeExact(carver);
+        }
+        catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Method to find the optimal horizontal seam of a seam carver
+     *
+     * @param carver the seam carver
+     * @return the horizontal seam
+     */
+    static int[] findHorizontalSeam(Object carver) {
+        try {
+            return (int[]) FIND_HORIZONTAL.invokeExact(carver);
+        }
+        catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Method to remove a vertical seam from a seam carver
+     *
+     * @param carver the seam carver
+     * @param seam   the vertical seam
+     */
+    static void removeVerticalSeam(Object carver, int[] seam) {
+        try {
+            REMOVE_VERTICAL.invokeExact(carver, seam);
+        }
+        catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Method to carve the picture of a seam carver down to the given size
+     *
+     * @param carver       the seam carver
+     * @param targetWidth  the width of the resulting picture
+     * @param targetHeight the height of the resulting picture
+     * @return the carved picture
+     */
+    static Picture resizeTo(Object carver, int targetWidth, int targetHeight) {
+        try {
+            return (Picture) RESIZE_TO.invokeExact(carver, targetWidth, targetHeight);
+        }
+        catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Private method to pass on an exception thrown through a method handle
+     *
+     * @param e the exception
+     * @return never returns, the return type lets callers write throw rethrow(e)
+     */
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new IllegalStateException(e);
+    }
+
+    /**
+     * Method to create a synthetic picture of smooth gradients with some noise, so seams follow
+     * structure as they would on a photograph instead of wandering through pure noise. The same
+     * size always gives the same picture.
+     *
+     * @param width  the width of the picture
+     * @param height the height of the picture
+     * @return the synthetic picture
+     */
+    static Picture syntheticPicture(int width, int height) {
+        Random random = new Random(((long) width << 32) ^ height);
+        Picture picture = new Picture(width, height);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int r = 255 * col / width;
+                int g = 255 * row / height;
+                int b = (int) (127.5 + 127.5 * Math.sin((col + 2 * row) * 0.05));
+                int noise = random.nextInt(33) - 16;
+                r = Math.max(0, Math.min(255, r + noise));
+                g = Math.max(0, Math.min(255, g + noise));
+                picture.setRGB(col, row, (r << 16) | (g << 8) | b);
+            }
+        }
+        return picture;
+    }
+}
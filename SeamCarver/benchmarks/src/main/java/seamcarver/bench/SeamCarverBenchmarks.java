@@ -0,0 +1,170 @@
+/* *****************************************************************************
+ *  Name: Koh Jun Jie
+ *  Date: 19th October 2026
+ *  Description: JMH benchmarks of the SeamCarver passes on synthetic pictures
+ **************************************************************************** */
+
+package seamcarver.bench;
+
+import edu.princeton.cs.algs4.Picture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of each pass of SeamCarver, from 256-by-256 to 8K pictures. Scores are in
+ * milliseconds per call, where a call of removeVerticalSeam removes REMOVALS seams.
+ * BenchmarkMain turns them into megapixels per second of the original picture and adds the
+ * bytes allocated per call reported by the GC profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms6g", "-Xmx6g" })
+public class SeamCarverBenchmarks {
+
+    /**
+     * Number of seams removed per call of removeVerticalSeam, small enough for the narrowest
+     * picture
+     */
+    public static final int REMOVALS = 64;
+
+    /**
+     * Synthetic picture of each size and a carver of it
+     */
+    @State(Scope.Thread)
+    public static class Pictures {
+
+        @Param({ "256x256", "1024x1024", "1920x1080", "3840x2160", "7680x4320" })
+        public String size;             // width x height of the synthetic picture
+
+        Picture picture;                // the synthetic picture
+        Object carver;                  // carver of the picture, left unchanged between calls
+
+        /**
+         * Method to build the picture and a carver of it
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            String[] dimensions = size.split("x");
+            picture = Carvers.syntheticPicture(Integer.parseInt(dimensions[0]),
+                                               Integer.parseInt(dimensions[1]));
+            carver = Carvers.create(picture);
+        }
+    }
+
+    /**
+     * Seams removed by removeVerticalSeam and the carver they are removed from
+     */
+    @State(Scope.Thread)
+    public static class Removals {
+
+        int[][] seams;                  // the first REMOVALS vertical seams of the picture
+        Object carver;                  // carver the seams are removed from, one per iteration
+
+        /**
+         * Method to find the seams the first REMOVALS removals of the picture remove
+         *
+         * @param pictures the picture
+         */
+        @Setup(Level.Trial)
+        public void setUp(Pictures pictures) {
+            Object sc = Carvers.create(pictures.picture);
+            seams = new int[REMOVALS][];
+            for (int i = 0; i < REMOVALS; i++) {
+                seams[i] = Carvers.findVerticalSeam(sc);
+                Carvers.removeVerticalSeam(sc, seams[i]);
+            }
+        }
+
+        /**
+         * Method to give each iteration a carver of the full picture
+         *
+         * @param pictures the picture
+         */
+        @Setup(Level.Iteration)
+        public void setUpIteration(Pictures pictures) {
+            carver = Carvers.create(pictures.picture);
+        }
+    }
+
+    /**
+     * Constructor, copying the picture in and computing every energy value
+     *
+     * @param pictures the picture
+     * @return the carver, so the work is not eliminated
+     */
+    @Benchmark
+    public Object constructor(Pictures pictures) {
+        return Carvers.create(pictures.picture);
+    }
+
+    /**
+     * Search for the vertical seam of least energy
+     *
+     * @param pictures the picture
+     * @return the seam
+     */
+    @Benchmark
+    public int[] findVerticalSeam(Pictures pictures) {
+        return Carvers.findVerticalSeam(pictures.carver);
+    }
+
+    /**
+     * Search for the horizontal seam of least energy, including transposing the picture there
+     * and back
+     *
+     * @param pictures the picture
+     * @return the seam
+     */
+    @Benchmark
+    public int[] findHorizontalSeam(Pictures pictures) {
+        return Carvers.findHorizontalSeam(pictures.carver);
+    }
+
+    /**
+     * Removal of REMOVALS consecutive vertical seams, including updating the energy values along
+     * each seam. A single call per iteration, since each removal narrows the picture.
+     *
+     * @param removals the seams and the carver they are removed from
+     * @return the carver, so the work is not eliminated
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public Object removeVerticalSeam(Removals removals) {
+        for (int[] seam : removals.seams) {
+            Carvers.removeVerticalSeam(removals.carver, seam);
+        }
+        return removals.carver;
+    }
+
+    /**
+     * Resize from scratch, removing a tenth of the width and of the height
+     *
+     * @param pictures the picture
+     * @return the carved picture
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public Picture resizeTo(Pictures pictures) {
+        Picture picture = pictures.picture;
+        return Carvers.resizeTo(Carvers.create(picture), picture.width() * 9 / 10,
+                                picture.height() * 9 / 10);
+    }
+}